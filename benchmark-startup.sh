@@ -0,0 +1,94 @@
+#!/bin/bash
+
+# ExpiryGuard Startup Benchmark
+# Compares the default startup path with the fast-startup mode (Spring AOT + CDS + lazy beans).
+#
+# Build first:  ./mvnw clean package -Pfast-startup -DskipTests
+# Then run:     ./benchmark-startup.sh [runs]
+#
+# Each run uses a fresh in-memory H2 database so results are repeatable.
+# Results are printed and written to bench_output.txt.
+
+RUNS=${1:-5}
+PORT=${BENCH_PORT:-18181}
+JAR="target/app/expiryguard-1.0.0.jar"
+CDS_ARCHIVE="target/app/application.jsa"
+OUTPUT_FILE="bench_output.txt"
+
+if [ ! -f "$JAR" ] || [ ! -f "$CDS_ARCHIVE" ]; then
+    echo "Missing $JAR or $CDS_ARCHIVE - build with: ./mvnw clean package -Pfast-startup -DskipTests"
+    exit 1
+fi
+
+COMMON_ARGS="--server.port=$PORT \
+--spring.datasource.url=jdbc:h2:mem:bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE \
+--spring.datasource.driver-class-name=org.h2.Driver \
+--spring.datasource.username=sa \
+--spring.datasource.password= \
+--expiryguard.scheduler.enabled=false"
+
+# Run one startup and print "<started-in-ms> <ready-ms> <first-request-ms>"
+run_once() {
+    local jvm_opts=$1
+    local app_args=$2
+    local log_file
+    log_file=$(mktemp)
+
+    local start_ms
+    start_ms=$(date +%s%3N)
+    java $jvm_opts -jar "$JAR" $COMMON_ARGS $app_args > "$log_file" 2>&1 &
+    local pid=$!
+
+    # Wait for Spring Boot to report it has started
+    until grep -q "Started ExpiryGuardApplication" "$log_file"; do
+        if ! kill -0 $pid 2>/dev/null; then
+            echo "Application exited during startup, see $log_file" >&2
+            return 1
+        fi
+        sleep 0.05
+    done
+    local ready_ms
+    ready_ms=$(( $(date +%s%3N) - start_ms ))
+
+    local started_in
+    started_in=$(grep -o "Started ExpiryGuardApplication in [0-9.]* seconds" "$log_file" | grep -o "[0-9.]*" | head -1)
+    started_in=$(awk "BEGIN { printf \"%d\", $started_in * 1000 }")
+
+    local first_request
+    first_request=$(curl -s -o /dev/null -w "%{time_total}" "http://localhost:$PORT/login")
+    first_request=$(awk "BEGIN { printf \"%d\", $first_request * 1000 }")
+
+    kill $pid
+    wait $pid 2>/dev/null
+    rm -f "$log_file"
+
+    echo "$started_in $ready_ms $first_request"
+}
+
+# Run a mode RUNS times and print averages
+benchmark() {
+    local label=$1
+    local jvm_opts=$2
+    local app_args=$3
+    local total_started=0 total_ready=0 total_first=0
+
+    for i in $(seq 1 $RUNS); do
+        local result
+        result=$(run_once "$jvm_opts" "$app_args") || exit 1
+        read -r started ready first <<< "$result"
+        echo "  [$label] run $i: started=${started}ms ready=${ready}ms first-request=${first}ms"
+        total_started=$((total_started + started))
+        total_ready=$((total_ready + ready))
+        total_first=$((total_first + first))
+    done
+
+    printf "%-10s avg started=%dms ready=%dms first-request=%dms\n" "$label" \
+        $((total_started / RUNS)) $((total_ready / RUNS)) $((total_first / RUNS)) >> "$OUTPUT_FILE"
+}
+
+echo "ExpiryGuard startup benchmark ($RUNS runs per mode) - $(date)" > "$OUTPUT_FILE"
+
+benchmark "default" "" "--spring.jpa.hibernate.ddl-auto=update"
+benchmark "fast" "-XX:SharedArchiveFile=$CDS_ARCHIVE -Dspring.aot.enabled=true" "--spring.profiles.active=fast"
+
+cat "$OUTPUT_FILE"
@@ -0,0 +1,32 @@
+package com.expiryguard.config;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+/**
+ * Startup tuning for the "fast" profile.
+ *
+ * Beans listed in expiryguard.startup.lazy-beans (mail sender, webhook and
+ * email services) are only needed when a notification goes out, so they are
+ * created on first use instead of during context refresh. Their injection
+ * points are marked @Lazy so nothing pulls them in eagerly.
+ */
+@Configuration
+@Profile("fast")
+public class FastStartupConfig {
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyBeansPostProcessor(Environment environment) {
+        String[] lazyBeans = environment.getProperty("expiryguard.startup.lazy-beans", String[].class, new String[0]);
+        return beanFactory -> {
+            for (String beanName : lazyBeans) {
+                if (beanFactory.containsBeanDefinition(beanName)) {
+                    beanFactory.getBeanDefinition(beanName).setLazyInit(true);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package com.expiryguard.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Decides whether read-only transactions may use the replica.
+ *
+ * Every lag-check-interval-ms the lag query runs against the replica. Reads stay on
+ * the primary until the first check passes, and fall back to it whenever the replica
+ * is unreachable or more than max-lag-seconds behind.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    /**
+     * Seconds since the last replayed transaction, or 0 when the replica has replayed
+     * everything it received (an idle primary would otherwise look like growing lag).
+     */
+    static final String POSTGRES_LAG_QUERY = "SELECT CASE "
+            + "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+
+    // null until the first check, so the initial state is logged too
+    private volatile Boolean replicaUsable;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, String lagQuery, double maxLagSeconds) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.replicaJdbcTemplate.setQueryTimeout(5);
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? POSTGRES_LAG_QUERY : lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    public boolean isReplicaUsable() {
+        return Boolean.TRUE.equals(replicaUsable);
+    }
+
+    @Scheduled(fixedDelayString = "${expiryguard.datasource.replica.lag-check-interval-ms:5000}")
+    public void checkLag() {
+        boolean usable;
+        String reason;
+        try {
+            Double lagSeconds = replicaJdbcTemplate.queryForObject(lagQuery, Double.class);
+            double lag = lagSeconds != null ? lagSeconds : 0;
+            usable = lag <= maxLagSeconds;
+            reason = String.format("lag %.1fs, tolerance %.1fs", lag, maxLagSeconds);
+        } catch (Exception e) {
+            usable = false;
+            reason = "lag check failed: " + e.getMessage();
+        }
+
+        if (!Boolean.valueOf(usable).equals(replicaUsable)) {
+            if (usable) {
+                log.info("Read replica available ({}), routing read-only transactions to it", reason);
+            } else {
+                log.warn("Read replica unavailable ({}), routing reads to the primary", reason);
+            }
+        }
+        replicaUsable = usable;
+    }
+}
@@ -0,0 +1,46 @@
+package com.expiryguard.controller;
+
+import com.expiryguard.entity.ApiToken;
+import com.expiryguard.entity.User;
+import com.expiryguard.service.ApiTokenService;
+import com.expiryguard.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+@Controller
+@RequiredArgsConstructor
+public class ApiTokenController {
+    private final ApiTokenService apiTokenService;
+    private final UserService userService;
+
+    @PostMapping("/tokens/create")
+    public String createToken(@AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam String name,
+            @RequestParam(defaultValue = "PERSONAL") ApiToken.Type type,
+            RedirectAttributes redirectAttributes) {
+        User user = userService.findByEmail(userDetails.getUsername());
+        try {
+            ApiTokenService.CreatedToken created = apiTokenService.createToken(user, name, type);
+
+            // Shown once on the dashboard; only the hash is stored
+            redirectAttributes.addFlashAttribute("newToken", created.rawToken());
+            redirectAttributes.addFlashAttribute("success", "API token '" + created.token().getName() + "' created");
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/dashboard";
+    }
+
+    @PostMapping("/tokens/revoke")
+    public String revokeToken(@AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam Long tokenId) {
+        User user = userService.findByEmail(userDetails.getUsername());
+        apiTokenService.revokeToken(tokenId, user);
+        return "redirect:/dashboard";
+    }
+}
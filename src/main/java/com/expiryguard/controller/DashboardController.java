@@ -1,13 +1,21 @@
 package com.expiryguard.controller;
 
+import com.expiryguard.entity.NotificationRollup;
 import com.expiryguard.entity.Secret;
+import com.expiryguard.entity.ThresholdPolicy;
 import com.expiryguard.entity.User;
+import com.expiryguard.service.ApiTokenService;
 import com.expiryguard.service.EmailService;
+import com.expiryguard.service.NotificationHistory;
+import com.expiryguard.service.NotificationHistoryService;
 import com.expiryguard.service.SecretService;
+import com.expiryguard.service.TeamService;
+import com.expiryguard.service.ThresholdPolicyService;
 import com.expiryguard.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,7 +27,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -28,36 +38,87 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 public class DashboardController {
+    private static final int SEARCH_PAGE_SIZE = 25;
+    private static final int MAX_SEARCH_PAGE = 10_000;
+
     private final SecretService secretService;
     private final UserService userService;
+    private final TeamService teamService;
+    private final ApiTokenService apiTokenService;
+    private final NotificationHistoryService historyService;
+    private final ThresholdPolicyService policyService;
+    @Lazy
     private final EmailService emailService;
 
     @Value("${spring.profiles.active:}")
     private String activeProfile;
 
+    /**
+     * Dashboard; any of q, from, to or urgency also runs a search (same rules as /api/secrets/search).
+     */
     @GetMapping({ "/", "/dashboard" })
-    public String dashboard(@AuthenticationPrincipal UserDetails userDetails, Model model) {
+    public String dashboard(@AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String urgency,
+            @RequestParam(defaultValue = "0") int page,
+            Model model) {
         User user = userService.findByEmail(userDetails.getUsername());
+        if (q != null || from != null || to != null || (urgency != null && !urgency.isBlank())) {
+            try {
+                model.addAttribute("searchResult", secretService.searchSecrets(user, q, from, to, urgency,
+                        Math.max(0, Math.min(page, MAX_SEARCH_PAGE)), SEARCH_PAGE_SIZE));
+            } catch (IllegalArgumentException e) {
+                model.addAttribute("error", e.getMessage());
+            }
+        }
         List<Secret> secrets = secretService.getUserSecrets(user);
+        ThresholdPolicy defaultPolicy = policyService.getDefaultPolicy();
 
         // Calculate days remaining for each secret
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
         Map<Long, Long> daysRemaining = secrets.stream()
                 .collect(Collectors.toMap(
                         Secret::getId,
-                        secret -> ChronoUnit.DAYS.between(LocalDate.now(), secret.getExpiryDate())));
+                        secret -> ChronoUnit.DAYS.between(today, secret.getExpiryDate())));
+
+        // Urgency against each secret's own policy; absent until its first threshold is reached
+        Map<Long, ThresholdPolicy.Urgency> urgencies = new HashMap<>();
+        for (Secret secret : secrets) {
+            int[] thresholds = (secret.getPolicy() != null ? secret.getPolicy() : defaultPolicy).getThresholds();
+            int level = ThresholdPolicyService.levelFor(thresholds, daysRemaining.get(secret.getId()));
+            if (level > 0) {
+                urgencies.put(secret.getId(), ThresholdPolicy.Urgency.of(level, thresholds.length));
+            }
+        }
 
         // Calculate summary stats
-        long expiringSoon = daysRemaining.values().stream()
-                .filter(days -> days <= 7 && days > 3)
+        long expiringSoon = urgencies.values().stream()
+                .filter(level -> level == ThresholdPolicy.Urgency.WARNING)
                 .count();
-        long urgent = daysRemaining.values().stream()
-                .filter(days -> days <= 3)
+        long urgent = urgencies.values().stream()
+                .filter(level -> level == ThresholdPolicy.Urgency.URGENT)
                 .count();
 
         model.addAttribute("secrets", secrets);
         model.addAttribute("daysRemaining", daysRemaining);
+        model.addAttribute("urgencies", urgencies);
         model.addAttribute("expiringSoon", expiringSoon);
         model.addAttribute("urgent", urgent);
+        model.addAttribute("teams", teamService.getUserTeams(user));
+        model.addAttribute("apiTokens", apiTokenService.getUserTokens(user));
+        model.addAttribute("policies", policyService.getPolicies(user));
+        model.addAttribute("defaultPolicy", defaultPolicy);
+
+        // Daily delivery chart, scaled to the busiest day
+        NotificationHistory history = historyService.getHistory(user, NotificationRollup.Granularity.DAY, 14);
+        long historyMax = history.buckets().stream()
+                .mapToLong(bucket -> bucket.sent() + bucket.failed())
+                .max()
+                .orElse(0);
+        model.addAttribute("deliveryHistory", history);
+        model.addAttribute("deliveryHistoryMax", Math.max(1, historyMax));
         return "dashboard";
     }
 
@@ -65,9 +126,16 @@ public class DashboardController {
     public String addSecret(@AuthenticationPrincipal UserDetails userDetails,
             @RequestParam String name,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiryDate,
-            @RequestParam(required = false) String notes) {
+            @RequestParam(required = false) String notes,
+            @RequestParam(required = false) Long teamId,
+            @RequestParam(required = false) Long policyId,
+            RedirectAttributes redirectAttributes) {
         User user = userService.findByEmail(userDetails.getUsername());
-        secretService.addSecret(user, name, expiryDate, notes);
+        try {
+            secretService.addSecret(user, name, expiryDate, notes, teamId, policyId);
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
         return "redirect:/dashboard";
     }
 
@@ -0,0 +1,38 @@
+package com.expiryguard.controller;
+
+import com.expiryguard.service.NotificationForecast;
+import com.expiryguard.service.NotificationForecastService;
+import com.expiryguard.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequiredArgsConstructor
+public class ForecastController {
+    private final NotificationForecastService forecastService;
+    private final UserService userService;
+
+    @Value("${expiryguard.forecast.max-horizon-days:365}")
+    private int maxHorizonDays;
+
+    /**
+     * Projected emails and webhooks per day for the current user's personal and team secrets.
+     * Example: /api/forecast?days=30
+     */
+    @GetMapping("/api/forecast")
+    public NotificationForecast forecast(@AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(defaultValue = "30") int days) {
+        if (days < 1 || days > maxHorizonDays) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "days must be between 1 and " + maxHorizonDays);
+        }
+        return forecastService.forecast(userService.findByEmail(userDetails.getUsername()), days);
+    }
+}
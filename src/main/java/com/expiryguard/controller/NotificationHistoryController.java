@@ -0,0 +1,60 @@
+package com.expiryguard.controller;
+
+import com.expiryguard.entity.NotificationEvent;
+import com.expiryguard.entity.NotificationRollup;
+import com.expiryguard.entity.User;
+import com.expiryguard.service.NotificationHistory;
+import com.expiryguard.service.NotificationHistoryService;
+import com.expiryguard.service.SecretService;
+import com.expiryguard.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class NotificationHistoryController {
+    private static final int MAX_PERIODS = 1000;
+    private static final int MAX_EVENTS = 500;
+
+    private final NotificationHistoryService historyService;
+    private final SecretService secretService;
+    private final UserService userService;
+
+    /**
+     * Sent/failed deliveries per hour or day for the caller's personal and team secrets, for charting.
+     * Example: /api/history?granularity=DAY&periods=14
+     */
+    @GetMapping("/api/history")
+    public NotificationHistory history(@AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(defaultValue = "DAY") NotificationRollup.Granularity granularity,
+            @RequestParam(defaultValue = "14") int periods) {
+        if (periods < 1 || periods > MAX_PERIODS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "periods must be between 1 and " + MAX_PERIODS);
+        }
+        User user = userService.findByEmail(userDetails.getUsername());
+        return historyService.getHistory(user, granularity, periods);
+    }
+
+    /**
+     * Recent delivery attempts for one secret the caller can see.
+     * Example: /api/history/secrets/42?limit=20
+     */
+    @GetMapping("/api/history/secrets/{id}")
+    public List<NotificationEvent> secretHistory(@AuthenticationPrincipal UserDetails userDetails,
+            @PathVariable Long id, @RequestParam(defaultValue = "50") int limit) {
+        User user = userService.findByEmail(userDetails.getUsername());
+        if (!secretService.canAccess(id, user)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Secret not found");
+        }
+        return historyService.getSecretEvents(id, Math.max(1, Math.min(limit, MAX_EVENTS)));
+    }
+}
@@ -0,0 +1,92 @@
+package com.expiryguard.controller;
+
+import com.expiryguard.entity.Secret;
+import com.expiryguard.entity.User;
+import com.expiryguard.service.SecretService;
+import com.expiryguard.service.ThresholdPolicyService;
+import com.expiryguard.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+
+/**
+ * Secret management for automation clients (authenticated with API tokens).
+ */
+@RestController
+@RequiredArgsConstructor
+public class SecretApiController {
+    private final SecretService secretService;
+    private final UserService userService;
+    private final ThresholdPolicyService policyService;
+
+    /**
+     * @param policyId threshold policy; null keeps the current one (the default policy for new secrets)
+     */
+    public record SecretRequest(String name, LocalDate expiryDate, String notes, Long teamId, Long policyId) {
+    }
+
+    public record SecretResponse(Long id, String name, LocalDate expiryDate, String notes, Long teamId,
+            Long policyId) {
+        static SecretResponse of(Secret secret) {
+            return new SecretResponse(secret.getId(), secret.getName(), secret.getExpiryDate(), secret.getNotes(),
+                    secret.getTeam() != null ? secret.getTeam().getId() : null,
+                    secret.getPolicy() != null ? secret.getPolicy().getId() : null);
+        }
+    }
+
+    @PostMapping("/api/secrets")
+    @ResponseStatus(HttpStatus.CREATED)
+    public SecretResponse create(@AuthenticationPrincipal UserDetails userDetails, @RequestBody SecretRequest request) {
+        if (request.name() == null || request.name().isBlank() || request.expiryDate() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "name and expiryDate are required");
+        }
+        User user = userService.findByEmail(userDetails.getUsername());
+        requireUsablePolicy(user, request.policyId());
+        try {
+            return SecretResponse.of(secretService.addSecret(user, request.name(), request.expiryDate(),
+                    request.notes(), request.teamId(), request.policyId()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, e.getMessage());
+        }
+    }
+
+    @PutMapping("/api/secrets/{id}")
+    public SecretResponse update(@AuthenticationPrincipal UserDetails userDetails, @PathVariable Long id,
+            @RequestBody SecretRequest request) {
+        if (request.name() != null && request.name().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "name must not be blank");
+        }
+        User user = userService.findByEmail(userDetails.getUsername());
+        requireUsablePolicy(user, request.policyId());
+        return secretService.updateSecret(id, user, request.name(), request.expiryDate(), request.notes(),
+                request.policyId())
+                .map(SecretResponse::of)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    @DeleteMapping("/api/secrets/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(@AuthenticationPrincipal UserDetails userDetails, @PathVariable Long id) {
+        User user = userService.findByEmail(userDetails.getUsername());
+        if (!secretService.deleteSecret(id, user)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    private void requireUsablePolicy(User user, Long policyId) {
+        if (policyId != null && policyService.getPolicy(user, policyId).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Threshold policy not found");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.expiryguard.controller;
+
+import com.expiryguard.entity.User;
+import com.expiryguard.service.SecretSearchResult;
+import com.expiryguard.service.SecretService;
+import com.expiryguard.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+
+@RestController
+@RequiredArgsConstructor
+public class SecretSearchController {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_PAGE = 10_000;
+
+    private final SecretService secretService;
+    private final UserService userService;
+
+    /**
+     * Search the current user's secrets.
+     * Example: /api/secrets/search?q=prod&urgency=WARNING&page=0&size=25
+     */
+    @GetMapping("/api/secrets/search")
+    public SecretSearchResult search(@AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String urgency,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "25") int size) {
+        if (page < 0 || page > MAX_PAGE || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must be between 0 and " + MAX_PAGE + " and size between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        User user = userService.findByEmail(userDetails.getUsername());
+        try {
+            return secretService.searchSecrets(user, q, from, to, urgency, page, size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
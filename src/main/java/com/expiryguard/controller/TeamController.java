@@ -0,0 +1,64 @@
+package com.expiryguard.controller;
+
+import com.expiryguard.entity.Team;
+import com.expiryguard.entity.User;
+import com.expiryguard.service.TeamService;
+import com.expiryguard.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+@Controller
+@RequiredArgsConstructor
+public class TeamController {
+    private final TeamService teamService;
+    private final UserService userService;
+
+    @PostMapping("/teams/create")
+    public String createTeam(@AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam String name,
+            RedirectAttributes redirectAttributes) {
+        User user = userService.findByEmail(userDetails.getUsername());
+        try {
+            Team team = teamService.createTeam(user, name);
+            redirectAttributes.addFlashAttribute("success", "Team '" + team.getName() + "' created");
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/dashboard";
+    }
+
+    @PostMapping("/teams/members/add")
+    public String addMember(@AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam Long teamId,
+            @RequestParam String email,
+            RedirectAttributes redirectAttributes) {
+        User user = userService.findByEmail(userDetails.getUsername());
+        try {
+            teamService.addMember(teamId, user, email.trim());
+            redirectAttributes.addFlashAttribute("success", email.trim() + " added to team");
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/dashboard";
+    }
+
+    @PostMapping("/teams/members/remove")
+    public String removeMember(@AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam Long teamId,
+            @RequestParam Long userId,
+            RedirectAttributes redirectAttributes) {
+        User user = userService.findByEmail(userDetails.getUsername());
+        try {
+            teamService.removeMember(teamId, user, userId);
+            redirectAttributes.addFlashAttribute("success", "Member removed from team");
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/dashboard";
+    }
+}
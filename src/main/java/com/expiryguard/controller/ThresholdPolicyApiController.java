@@ -0,0 +1,101 @@
+package com.expiryguard.controller;
+
+import com.expiryguard.entity.ThresholdPolicy;
+import com.expiryguard.entity.User;
+import com.expiryguard.service.ThresholdPolicyService;
+import com.expiryguard.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Threshold policies for automation clients (authenticated with API tokens).
+ */
+@RestController
+@RequiredArgsConstructor
+public class ThresholdPolicyApiController {
+    private final ThresholdPolicyService policyService;
+    private final UserService userService;
+
+    /**
+     * @param teamId owning team; null for a personal policy
+     */
+    public record PolicyRequest(String name, List<Integer> thresholds, Long teamId) {
+    }
+
+    /**
+     * @param teamId owning team, or null for personal and built-in policies
+     */
+    public record PolicyResponse(Long id, String name, int[] thresholds, Long teamId, boolean builtIn) {
+        static PolicyResponse of(ThresholdPolicy policy) {
+            return new PolicyResponse(policy.getId(), policy.getName(), policy.getThresholds(),
+                    policy.getTeam() != null ? policy.getTeam().getId() : null, policy.isBuiltIn());
+        }
+    }
+
+    /**
+     * The default policy plus the caller's own and their teams' policies.
+     */
+    @GetMapping("/api/policies")
+    public List<PolicyResponse> list(@AuthenticationPrincipal UserDetails userDetails) {
+        User user = userService.findByEmail(userDetails.getUsername());
+        return policyService.getPolicies(user).stream().map(PolicyResponse::of).toList();
+    }
+
+    @PostMapping("/api/policies")
+    @ResponseStatus(HttpStatus.CREATED)
+    public PolicyResponse create(@AuthenticationPrincipal UserDetails userDetails,
+            @RequestBody PolicyRequest request) {
+        User user = userService.findByEmail(userDetails.getUsername());
+        try {
+            return PolicyResponse.of(policyService.createPolicy(user, request.name(),
+                    thresholdSpec(request.thresholds(), ""), request.teamId()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Rename a policy and/or replace its thresholds; omitted fields are left unchanged.
+     */
+    @PutMapping("/api/policies/{id}")
+    public PolicyResponse update(@AuthenticationPrincipal UserDetails userDetails, @PathVariable Long id,
+            @RequestBody PolicyRequest request) {
+        User user = userService.findByEmail(userDetails.getUsername());
+        try {
+            return policyService.updatePolicy(user, id, request.name(), thresholdSpec(request.thresholds(), null))
+                    .map(PolicyResponse::of)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/api/policies/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(@AuthenticationPrincipal UserDetails userDetails, @PathVariable Long id) {
+        User user = userService.findByEmail(userDetails.getUsername());
+        if (!policyService.deletePolicy(user, id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    private static String thresholdSpec(List<Integer> thresholds, String ifMissing) {
+        return thresholds == null ? ifMissing : thresholds.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,72 @@
+package com.expiryguard.controller;
+
+import com.expiryguard.entity.ThresholdPolicy;
+import com.expiryguard.entity.User;
+import com.expiryguard.service.ThresholdPolicyService;
+import com.expiryguard.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.util.Optional;
+
+@Controller
+@RequiredArgsConstructor
+public class ThresholdPolicyController {
+    private final ThresholdPolicyService policyService;
+    private final UserService userService;
+
+    @PostMapping("/policies/create")
+    public String createPolicy(@AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam String name,
+            @RequestParam String thresholds,
+            @RequestParam(required = false) Long teamId,
+            RedirectAttributes redirectAttributes) {
+        User user = userService.findByEmail(userDetails.getUsername());
+        try {
+            ThresholdPolicy policy = policyService.createPolicy(user, name, thresholds, teamId);
+            redirectAttributes.addFlashAttribute("success", "Policy '" + policy.getName() + "' created ("
+                    + ThresholdPolicyService.describe(policy.getThresholds()) + ")");
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/dashboard";
+    }
+
+    @PostMapping("/policies/update")
+    public String updatePolicy(@AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam Long policyId,
+            @RequestParam String thresholds,
+            RedirectAttributes redirectAttributes) {
+        User user = userService.findByEmail(userDetails.getUsername());
+        try {
+            Optional<ThresholdPolicy> policy = policyService.updatePolicy(user, policyId, null, thresholds);
+            if (policy.isPresent()) {
+                redirectAttributes.addFlashAttribute("success", "Policy '" + policy.get().getName() + "' now notifies at "
+                        + ThresholdPolicyService.describe(policy.get().getThresholds()));
+            } else {
+                redirectAttributes.addFlashAttribute("error", "Threshold policy not found");
+            }
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/dashboard";
+    }
+
+    @PostMapping("/policies/delete")
+    public String deletePolicy(@AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam Long policyId,
+            RedirectAttributes redirectAttributes) {
+        User user = userService.findByEmail(userDetails.getUsername());
+        if (policyService.deletePolicy(user, policyId)) {
+            redirectAttributes.addFlashAttribute("success", "Policy deleted; its secrets now use the default policy");
+        } else {
+            redirectAttributes.addFlashAttribute("error", "Threshold policy not found");
+        }
+        return "redirect:/dashboard";
+    }
+}
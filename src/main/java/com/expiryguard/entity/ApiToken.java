@@ -0,0 +1,64 @@
+package com.expiryguard.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "api_tokens")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApiToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+
+    /**
+     * SHA-256 of the raw token (hex). The raw token is shown once and never stored.
+     */
+    @Column(nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    /**
+     * First characters of the raw token, to help users recognise it in the list.
+     */
+    @Column(nullable = false)
+    private String tokenPrefix;
+
+    /**
+     * Null for tokens that never expire (service tokens).
+     */
+    @Column
+    private LocalDateTime expiresAt;
+
+    @Column
+    private LocalDateTime lastUsedAt;
+
+    @Column(nullable = false)
+    private boolean active = true;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public enum Type {
+        /** Acts as the user, expires after expiryguard.api-token.personal-token-days. */
+        PERSONAL,
+        /** Long-lived token for automation such as CI pipelines. */
+        SERVICE
+    }
+}
@@ -0,0 +1,30 @@
+package com.expiryguard.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per background job that must not run on two instances at once.
+ * A run updates its row inside the job's transaction, so the row lock is held
+ * until commit and a concurrent run on another instance waits for it.
+ */
+@Entity
+@Table(name = "job_locks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLock {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column
+    private LocalDateTime lockedAt;
+
+    @Column
+    private String lockedBy;
+}
@@ -0,0 +1,61 @@
+package com.expiryguard.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only record of one delivery attempt.
+ * Rows are inserted in JDBC batches by NotificationHistoryRecorder and never updated;
+ * they are rolled up into NotificationRollup and purged after the raw retention period.
+ */
+@Entity
+@Table(name = "notification_events", indexes = {
+        @Index(name = "idx_notification_events_occurred", columnList = "occurredAt"),
+        @Index(name = "idx_notification_events_secret", columnList = "secretId, occurredAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long secretId;
+
+    /**
+     * Email address, or the webhook channel name.
+     */
+    @Column(nullable = false)
+    private String recipient;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Channel channel;
+
+    @Column(nullable = false)
+    private int threshold;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Outcome outcome;
+
+    @Column(nullable = false)
+    private long latencyMs;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    public enum Channel {
+        EMAIL, SLACK, DISCORD, WEBHOOK
+    }
+
+    public enum Outcome {
+        SENT, FAILED
+    }
+}
@@ -0,0 +1,64 @@
+package com.expiryguard.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Delivery counts and latency per time bucket, secret owner, channel and outcome.
+ * Maintained by NotificationHistoryCompactor from raw NotificationEvent rows (hourly)
+ * and from hourly rollups (daily).
+ *
+ * Rows are kept per owner so each user only sees deliveries for their own and their
+ * teams' secrets: ownerId is the team id for team-owned secrets, the user id otherwise.
+ */
+@Entity
+@Table(name = "notification_rollups", uniqueConstraints = @UniqueConstraint(
+        name = "uk_notification_rollups_bucket",
+        columnNames = { "granularity", "teamOwned", "ownerId", "bucketStart", "channel", "outcome" }),
+        indexes = @Index(name = "idx_notification_rollups_start", columnList = "granularity, bucketStart"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Granularity granularity;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private boolean teamOwned;
+
+    @Column(nullable = false)
+    private long ownerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationEvent.Channel channel;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationEvent.Outcome outcome;
+
+    @Column(nullable = false)
+    private long messageCount;
+
+    @Column(nullable = false)
+    private long totalLatencyMs;
+
+    @Column(nullable = false)
+    private long maxLatencyMs;
+
+    public enum Granularity {
+        HOUR, DAY
+    }
+}
@@ -22,6 +22,21 @@ public class Secret {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    /**
+     * Owning team, or null for a personal secret.
+     * Team-owned secrets are visible to and notified to every team member.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "team_id")
+    private Team team;
+
+    /**
+     * Notification thresholds, or null for the default policy.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "policy_id")
+    private ThresholdPolicy policy;
+
     @Column(nullable = false)
     private String name;
 
@@ -41,14 +56,19 @@ public class Secret {
     private LocalDate lastNotifiedOn;
 
     /**
-     * State field: which threshold level was last notified (30, 7, 3, or null).
-     * Used for escalation logic - notification fires when:
-     * - lastNotifiedThreshold is null (never notified), OR
-     * - currentThreshold < lastNotifiedThreshold (escalation to more urgent level)
+     * Audit field: days-before-expiry threshold of the last notification (e.g. 7).
      */
     @Column
     private Integer lastNotifiedThreshold;
 
+    /**
+     * State field: bitmask of policy levels already notified (bit i - 1 for level i).
+     * A notification fires when the secret reaches a level whose bit is not set;
+     * sending it sets that level's bit and those of all less urgent levels.
+     */
+    @Column
+    private Integer notifiedLevels = 0;
+
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 }
\ No newline at end of file
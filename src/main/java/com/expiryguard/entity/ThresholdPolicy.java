@@ -0,0 +1,81 @@
+package com.expiryguard.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Named set of notification thresholds, e.g. "Standard" (30, 7, 3) or "Partner certs" (90, 60, 14, 1).
+ *
+ * Level i (1-based) is thresholds[i - 1]; a secret tracks which levels already fired
+ * in Secret.notifiedLevels, bit i - 1 per level.
+ *
+ * A policy belongs to a user or to a team, and names are unique per owner. The built-in
+ * default policy has neither and cannot be changed.
+ */
+@Entity
+@Table(name = "threshold_policies", indexes = {
+        @Index(name = "idx_threshold_policies_user", columnList = "user_id"),
+        @Index(name = "idx_threshold_policies_team", columnList = "team_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ThresholdPolicy {
+    /**
+     * Upper bound on levels per policy; the scheduler's due query enumerates this many.
+     */
+    public static final int MAX_LEVELS = 16;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    /**
+     * Owner of a personal policy; null for team and built-in policies.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    /**
+     * Owning team of a team policy; null for personal and built-in policies.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "team_id")
+    private Team team;
+
+    /**
+     * Days before expiry, strictly decreasing (least urgent first).
+     */
+    @Column(nullable = false)
+    private int[] thresholds;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public boolean isBuiltIn() {
+        return user == null && team == null;
+    }
+
+    /**
+     * Display urgency of a level: the last level is URGENT, the one before it WARNING,
+     * any earlier levels NOTICE.
+     */
+    public enum Urgency {
+        NOTICE, WARNING, URGENT;
+
+        public static Urgency of(int level, int levelCount) {
+            if (level >= levelCount) {
+                return URGENT;
+            }
+            return level == levelCount - 1 ? WARNING : NOTICE;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.expiryguard.repository;
+
+import com.expiryguard.entity.ApiToken;
+import com.expiryguard.entity.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ApiTokenRepository extends JpaRepository<ApiToken, Long> {
+    // Read-write so lookups use the primary and newly created tokens work immediately with replica routing
+    @Transactional
+    @Query("SELECT t FROM ApiToken t JOIN FETCH t.user WHERE t.tokenHash = :tokenHash AND t.active = true")
+    Optional<ApiToken> findActiveByTokenHash(@Param("tokenHash") String tokenHash);
+
+    List<ApiToken> findByUserAndActiveOrderByCreatedAtDesc(User user, boolean active);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ApiToken t SET t.lastUsedAt = :usedAt WHERE t.id = :id")
+    void updateLastUsedAt(@Param("id") Long id, @Param("usedAt") LocalDateTime usedAt);
+}
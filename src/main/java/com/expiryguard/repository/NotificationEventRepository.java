@@ -0,0 +1,16 @@
+package com.expiryguard.repository;
+
+import com.expiryguard.entity.NotificationEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Read side of the delivery history. Inserts go through NotificationHistoryRecorder in JDBC batches.
+ */
+@Repository
+public interface NotificationEventRepository extends JpaRepository<NotificationEvent, Long> {
+    List<NotificationEvent> findBySecretIdOrderByOccurredAtDesc(Long secretId, Limit limit);
+}
@@ -0,0 +1,22 @@
+package com.expiryguard.repository;
+
+import com.expiryguard.entity.NotificationRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationRollupRepository extends JpaRepository<NotificationRollup, Long> {
+    /**
+     * Rollups of the user's personal secrets and of secrets owned by their teams.
+     */
+    @Query("SELECT r FROM NotificationRollup r WHERE r.granularity = :granularity AND r.bucketStart >= :from " +
+            "AND ((r.teamOwned = false AND r.ownerId = :userId) OR (r.teamOwned = true AND r.ownerId IN " +
+            "(SELECT t.id FROM Team t JOIN t.members m WHERE m.id = :userId))) ORDER BY r.bucketStart ASC")
+    List<NotificationRollup> findVisibleToUser(@Param("granularity") NotificationRollup.Granularity granularity,
+            @Param("from") LocalDateTime from, @Param("userId") Long userId);
+}
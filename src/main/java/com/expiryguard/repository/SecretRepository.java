@@ -1,19 +1,95 @@
 package com.expiryguard.repository;
 
 import com.expiryguard.entity.Secret;
+import com.expiryguard.entity.ThresholdPolicy;
 import com.expiryguard.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface SecretRepository extends JpaRepository<Secret, Long> {
     List<Secret> findByUserAndActiveOrderByExpiryDateAsc(User user, boolean active);
 
-    @Query("SELECT s FROM Secret s JOIN FETCH s.user WHERE s.active = true AND s.expiryDate >= :today AND s.expiryDate <= :maxDate")
+    /**
+     * Active secrets the user owns personally or through team membership.
+     */
+    @Query("SELECT s FROM Secret s LEFT JOIN FETCH s.team LEFT JOIN FETCH s.policy WHERE s.active = true AND " +
+            "(s.user = :user OR s.team.id IN (SELECT t.id FROM Team t JOIN t.members m WHERE m = :user)) " +
+            "ORDER BY s.expiryDate ASC")
+    List<Secret> findVisibleToUser(@Param("user") User user);
+
+    @Query("SELECT s FROM Secret s JOIN FETCH s.user LEFT JOIN FETCH s.team WHERE s.active = true AND s.expiryDate >= :today AND s.expiryDate <= :maxDate")
     List<Secret> findSecretsExpiringBefore(@Param("today") LocalDate today, @Param("maxDate") LocalDate maxDate);
-}
\ No newline at end of file
+
+    long countByActiveTrueAndExpiryDateGreaterThanEqual(LocalDate today);
+
+    @Query("SELECT s FROM Secret s JOIN FETCH s.user LEFT JOIN FETCH s.team WHERE s.id IN :ids")
+    List<Secret> findWithOwnersByIdIn(@Param("ids") Collection<Long> ids);
+
+    List<Secret> findByPolicyAndActiveTrue(ThresholdPolicy policy);
+
+    /**
+     * Move secrets off a policy that is being deleted onto the default policy
+     * (their levels are remapped beforehand, see ThresholdPolicyService.remapNotifiedLevels).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Secret s SET s.policy = null WHERE s.policy = :policy")
+    int moveToDefaultPolicy(@Param("policy") ThresholdPolicy policy);
+
+    /**
+     * Secrets that owe a notification today, with the level to send, in one set-based query.
+     *
+     * Each secret is joined to its policy's levels (the recursive CTE enumerates level
+     * indexes and their bit values). The most urgent level whose threshold is reached
+     * is due unless its bit is already set in notified_levels. Secrets without a policy
+     * use defaultPolicyId; maxDate bounds the scan to the furthest threshold of any policy.
+     */
+    @Query(value = "WITH RECURSIVE levels (idx, bit) AS (" +
+            "  SELECT 1, 1 UNION ALL SELECT idx + 1, bit * 2 FROM levels WHERE idx < " + ThresholdPolicy.MAX_LEVELS +
+            "), reached (secret_id, notified_levels, level, threshold, level_count) AS (" +
+            "  SELECT s.id, COALESCE(s.notified_levels, 0), MAX(l.idx), MIN(p.thresholds[l.idx])," +
+            "    MAX(CARDINALITY(p.thresholds))" +
+            "  FROM secrets s" +
+            "  JOIN threshold_policies p ON p.id = COALESCE(s.policy_id, :defaultPolicyId)" +
+            "  JOIN levels l ON l.idx <= CARDINALITY(p.thresholds)" +
+            "  WHERE s.active = true AND s.expiry_date >= :today AND s.expiry_date <= :maxDate" +
+            "    AND s.expiry_date <= CAST(:today AS DATE) + p.thresholds[l.idx]" +
+            "  GROUP BY s.id, s.notified_levels" +
+            ") " +
+            "SELECT r.secret_id AS \"secretId\", r.level AS \"level\", r.level_count AS \"levelCount\"," +
+            "  r.threshold AS \"threshold\" " +
+            "FROM reached r JOIN levels l ON l.idx = r.level " +
+            "WHERE MOD(r.notified_levels / l.bit, 2) = 0", nativeQuery = true)
+    List<DueLevel> findDueLevels(@Param("today") LocalDate today, @Param("maxDate") LocalDate maxDate,
+            @Param("defaultPolicyId") Long defaultPolicyId);
+
+    /**
+     * Team member recipients for the given team-owned secrets, resolved in one query.
+     */
+    @Query("SELECT s.id AS secretId, m.email AS email FROM Secret s JOIN s.team t JOIN t.members m " +
+            "WHERE s.id IN :ids")
+    List<SecretRecipient> findTeamRecipientsByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface DueLevel {
+        Long getSecretId();
+
+        Integer getLevel();
+
+        Integer getLevelCount();
+
+        Integer getThreshold();
+    }
+
+    interface SecretRecipient {
+        Long getSecretId();
+
+        String getEmail();
+    }
+}
@@ -0,0 +1,22 @@
+package com.expiryguard.repository;
+
+import com.expiryguard.entity.Team;
+import com.expiryguard.entity.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TeamRepository extends JpaRepository<Team, Long> {
+    @Query("SELECT DISTINCT t FROM Team t LEFT JOIN FETCH t.members " +
+            "WHERE t.id IN (SELECT mt.id FROM Team mt JOIN mt.members m WHERE m = :user) ORDER BY t.name")
+    List<Team> findTeamsWithMembersByMember(@Param("user") User user);
+
+    @Query("SELECT t.id FROM Team t JOIN t.members m WHERE m = :user")
+    List<Long> findTeamIdsByMember(@Param("user") User user);
+
+    boolean existsByIdAndMembers_Id(Long teamId, Long userId);
+}
@@ -0,0 +1,40 @@
+package com.expiryguard.repository;
+
+import com.expiryguard.entity.ThresholdPolicy;
+import com.expiryguard.entity.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ThresholdPolicyRepository extends JpaRepository<ThresholdPolicy, Long> {
+    Optional<ThresholdPolicy> findFirstByNameAndUserIsNullAndTeamIsNullOrderByIdAsc(String name);
+
+    boolean existsByNameIgnoreCaseAndUser(String name, User user);
+
+    boolean existsByNameIgnoreCaseAndTeam_Id(String name, Long teamId);
+
+    /**
+     * The user's personal policies and the policies of their teams.
+     */
+    @Query("SELECT p FROM ThresholdPolicy p LEFT JOIN FETCH p.team WHERE p.user = :user OR p.team.id IN " +
+            "(SELECT t.id FROM Team t JOIN t.members m WHERE m = :user) ORDER BY p.name ASC")
+    List<ThresholdPolicy> findVisibleToUser(@Param("user") User user);
+
+    /**
+     * Policies of the user's active personal and team secrets; a team secret may use a teammate's policy.
+     */
+    @Query("SELECT p FROM ThresholdPolicy p WHERE p.id IN (SELECT s.policy.id FROM Secret s WHERE s.active = true " +
+            "AND (s.user = :user OR s.team.id IN (SELECT t.id FROM Team t JOIN t.members m WHERE m = :user)))")
+    List<ThresholdPolicy> findUsedBySecretsVisibleTo(@Param("user") User user);
+
+    /**
+     * Furthest threshold of any policy (thresholds are stored least urgent first).
+     */
+    @Query(value = "SELECT MAX(thresholds[1]) FROM threshold_policies", nativeQuery = true)
+    Integer findMaxThreshold();
+}
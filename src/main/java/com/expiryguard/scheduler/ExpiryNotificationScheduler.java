@@ -1,27 +1,38 @@
 package com.expiryguard.scheduler;
 
+import com.expiryguard.entity.NotificationEvent;
 import com.expiryguard.entity.Secret;
+import com.expiryguard.entity.ThresholdPolicy;
+import com.expiryguard.service.DeliveryResult;
+import com.expiryguard.service.DueNotification;
 import com.expiryguard.service.EmailService;
+import com.expiryguard.service.NotificationHistoryRecorder;
 import com.expiryguard.service.SecretService;
 import com.expiryguard.service.WebhookService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class ExpiryNotificationScheduler {
     private final SecretService secretService;
+    @Lazy
     private final EmailService emailService;
+    @Lazy
     private final WebhookService webhookService;
+    private final NotificationHistoryRecorder historyRecorder;
 
     @Value("${expiryguard.scheduler.enabled:true}")
     private boolean schedulerEnabled;
@@ -36,51 +47,64 @@ public class ExpiryNotificationScheduler {
 
         log.info("ExpiryGuard: Starting notification job at {}", LocalDateTime.now());
 
-        // Get all secrets expiring within 30 days
-        List<Secret> secrets = secretService.getSecretsExpiringWithin(30);
-        log.info("Found {} secrets expiring within 30 days", secrets.size());
+        // Which secrets owe a notification, and at which policy level, is worked out in the database
+        List<DueNotification> due = secretService.getDueNotifications();
+        log.info("Found {} secrets due for a notification", due.size());
 
         int notificationsSent = 0;
         List<String> urgentSecrets = new ArrayList<>();
+        List<Secret> dueSecrets = new ArrayList<>();
+        Map<Long, DueNotification> dueById = new HashMap<>();
+
+        for (DueNotification notification : due) {
+            Secret secret = notification.secret();
+            log.info("Secret '{}' expires in {} days - sending {} notification ({}-day threshold)",
+                    secret.getName(), secretService.getDaysRemaining(secret), notification.urgency(),
+                    notification.threshold());
+            dueSecrets.add(secret);
+            dueById.put(secret.getId(), notification);
+        }
 
-        for (Secret secret : secrets) {
-            long daysRemaining = secretService.getDaysRemaining(secret);
-            int threshold = secretService.getNotificationThreshold(secret);
-
-            if (threshold > 0) {
-                String urgency = secretService.getUrgencyLabel(threshold);
-                log.info("Secret '{}' expires in {} days - sending {} notification ({}-day threshold)",
-                        secret.getName(), daysRemaining, urgency, threshold);
-
-                try {
-                    // Send email notification
-                    emailService.sendExpiryNotification(secret);
+        // One email per person covering all of their due secrets (personal and team-owned),
+        // sent in parallel over pooled SMTP connections
+        Map<String, List<Secret>> dueByRecipient = secretService.groupByRecipient(dueSecrets);
+        Map<String, DeliveryResult> emailResults = emailService.sendExpiryDigests(dueByRecipient);
+        dueByRecipient.forEach((recipient, recipientSecrets) -> {
+            DeliveryResult result = emailResults.get(recipient);
+            for (Secret secret : recipientSecrets) {
+                historyRecorder.record(secret.getId(), recipient, NotificationEvent.Channel.EMAIL,
+                        dueById.get(secret.getId()).threshold(), result);
+            }
+        });
 
-                    // Send webhook notification (Slack/Discord)
-                    webhookService.sendExpiryNotification(secret, threshold);
+        for (DueNotification notification : due) {
+            Secret secret = notification.secret();
+            int threshold = notification.threshold();
 
-                    // Mark as notified
-                    secretService.markAsNotified(secret, threshold);
-                    notificationsSent++;
+            try {
+                // Send webhook notification (Slack/Discord)
+                webhookService.sendExpiryNotification(secret, threshold, notification.urgency())
+                        .forEach((channel, result) -> historyRecorder.record(secret.getId(),
+                                channel.name().toLowerCase(), channel, threshold, result));
 
-                    // Track urgent secrets for summary
-                    if (threshold == 3) {
-                        urgentSecrets.add(secret.getName());
-                    }
+                // Mark as notified
+                secretService.markAsNotified(notification);
+                notificationsSent++;
 
-                    log.info("✓ {} notification sent for: {}", urgency, secret.getName());
-                } catch (Exception e) {
-                    log.error("✗ Failed to send notification for secret: {}", secret.getName(), e);
+                // Track urgent secrets for summary
+                if (notification.urgency() == ThresholdPolicy.Urgency.URGENT) {
+                    urgentSecrets.add(secret.getName());
                 }
-            } else {
-                log.debug("Secret '{}' expires in {} days - already notified",
-                        secret.getName(), daysRemaining);
+
+                log.info("✓ {} notification sent for: {}", notification.urgency(), secret.getName());
+            } catch (Exception e) {
+                log.error("✗ Failed to send notification for secret: {}", secret.getName(), e);
             }
         }
 
         // Send daily summary to webhooks
         if (webhookService.isWebhookConfigured()) {
-            webhookService.sendBatchSummary(secrets.size(), notificationsSent, urgentSecrets);
+            webhookService.sendBatchSummary((int) secretService.countMonitoredSecrets(), notificationsSent, urgentSecrets);
         }
 
         log.info("ExpiryGuard: Notification job completed. Sent {} notifications", notificationsSent);
@@ -0,0 +1,162 @@
+package com.expiryguard.scheduler;
+
+import com.expiryguard.service.NotificationHistoryRecorder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Folds raw notification events into hourly rollups, hourly rollups into daily
+ * rollups, and purges rows older than their retention period.
+ *
+ * Each run recomputes every bucket from one before the latest rollup up to now,
+ * so events flushed late and the still-open current hour/day are picked up.
+ * The window never reaches back past the source level's retention: after a quiet
+ * spell longer than that, the old rollups are kept rather than rebuilt from rows
+ * that have already been purged.
+ * Recomputing is a delete + INSERT ... SELECT per granularity, which makes
+ * repeated runs idempotent. Events are attributed to their secret's owner (team or
+ * user) at compaction time.
+ *
+ * Runs on different instances are serialized by the "notification-history" row in
+ * job_locks, locked for the whole transaction; a run that waited then recomputes
+ * from the rollups the other one committed.
+ */
+@Component
+@Slf4j
+public class NotificationHistoryCompactor {
+    private static final String LOCK_NAME = "notification-history";
+
+    private static final String DELETE_ROLLUPS_SQL = "DELETE FROM notification_rollups "
+            + "WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ?";
+
+    private static final String INSERT_HOURLY_SQL = "INSERT INTO notification_rollups "
+            + "(granularity, bucket_start, team_owned, owner_id, channel, outcome, "
+            + "message_count, total_latency_ms, max_latency_ms) "
+            + "SELECT 'HOUR', DATE_TRUNC('hour', e.occurred_at), s.team_id IS NOT NULL, "
+            + "COALESCE(s.team_id, s.user_id), e.channel, e.outcome, "
+            + "COUNT(*), SUM(e.latency_ms), MAX(e.latency_ms) "
+            + "FROM notification_events e JOIN secrets s ON s.id = e.secret_id "
+            + "WHERE e.occurred_at >= ? AND e.occurred_at < ? "
+            + "GROUP BY DATE_TRUNC('hour', e.occurred_at), s.team_id IS NOT NULL, COALESCE(s.team_id, s.user_id), "
+            + "e.channel, e.outcome";
+
+    private static final String INSERT_DAILY_SQL = "INSERT INTO notification_rollups "
+            + "(granularity, bucket_start, team_owned, owner_id, channel, outcome, "
+            + "message_count, total_latency_ms, max_latency_ms) "
+            + "SELECT 'DAY', DATE_TRUNC('day', bucket_start), team_owned, owner_id, channel, outcome, "
+            + "SUM(message_count), SUM(total_latency_ms), MAX(max_latency_ms) "
+            + "FROM notification_rollups WHERE granularity = 'HOUR' AND bucket_start >= ? AND bucket_start < ? "
+            + "GROUP BY DATE_TRUNC('day', bucket_start), team_owned, owner_id, channel, outcome";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationHistoryRecorder historyRecorder;
+    private final int rawRetentionDays;
+    private final int hourlyRetentionDays;
+    private final int dailyRetentionDays;
+
+    public NotificationHistoryCompactor(JdbcTemplate jdbcTemplate, NotificationHistoryRecorder historyRecorder,
+            @Value("${expiryguard.history.raw-retention-days:30}") int rawRetentionDays,
+            @Value("${expiryguard.history.hourly-retention-days:90}") int hourlyRetentionDays,
+            @Value("${expiryguard.history.daily-retention-days:730}") int dailyRetentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.historyRecorder = historyRecorder;
+        // Rollups are rebuilt from the level below, which must outlive the recompute window
+        this.rawRetentionDays = Math.max(1, rawRetentionDays);
+        this.hourlyRetentionDays = Math.max(2, hourlyRetentionDays);
+        this.dailyRetentionDays = Math.max(1, dailyRetentionDays);
+    }
+
+    /**
+     * Create the lock row up front so runs only ever update it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createLockRow() {
+        try {
+            jdbcTemplate.update("INSERT INTO job_locks (name) SELECT ? WHERE NOT EXISTS "
+                    + "(SELECT 1 FROM job_locks WHERE name = ?)", LOCK_NAME, LOCK_NAME);
+        } catch (DuplicateKeyException e) {
+            // Another instance created it first
+        }
+    }
+
+    @Scheduled(cron = "${expiryguard.history.compaction-cron:0 */15 * * * *}", zone = "UTC")
+    @Transactional
+    public void compact() {
+        historyRecorder.flush();
+
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        // Held until commit; blocks while another instance is compacting
+        if (jdbcTemplate.update("UPDATE job_locks SET locked_at = ?, locked_by = ? WHERE name = ?",
+                Timestamp.valueOf(now), ManagementFactory.getRuntimeMXBean().getName(), LOCK_NAME) == 0) {
+            log.warn("Job lock '{}' is missing, skipping notification history compaction", LOCK_NAME);
+            return;
+        }
+        LocalDateTime nextHour = now.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        LocalDateTime nextDay = now.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+
+        LocalDateTime hourlyFrom = recomputeFrom("HOUR", "SELECT MIN(occurred_at) FROM notification_events",
+                ChronoUnit.HOURS, now.minusDays(rawRetentionDays));
+        int hourly = hourlyFrom == null ? 0 : rebuild("HOUR", INSERT_HOURLY_SQL, hourlyFrom, nextHour);
+
+        LocalDateTime dailyFrom = recomputeFrom("DAY",
+                "SELECT MIN(bucket_start) FROM notification_rollups WHERE granularity = 'HOUR'", ChronoUnit.DAYS,
+                now.minusDays(hourlyRetentionDays));
+        int daily = dailyFrom == null ? 0 : rebuild("DAY", INSERT_DAILY_SQL, dailyFrom, nextDay);
+
+        int purgedEvents = jdbcTemplate.update("DELETE FROM notification_events WHERE occurred_at < ?",
+                Timestamp.valueOf(now.minusDays(rawRetentionDays)));
+        int purgedRollups = jdbcTemplate.update(
+                "DELETE FROM notification_rollups WHERE granularity = 'HOUR' AND bucket_start < ?",
+                Timestamp.valueOf(now.minusDays(hourlyRetentionDays)));
+        purgedRollups += jdbcTemplate.update(
+                "DELETE FROM notification_rollups WHERE granularity = 'DAY' AND bucket_start < ?",
+                Timestamp.valueOf(now.minusDays(dailyRetentionDays)));
+
+        log.debug("Notification history compacted: {} hourly and {} daily rollups rebuilt, "
+                + "{} events and {} rollups purged", hourly, daily, purgedEvents, purgedRollups);
+    }
+
+    /**
+     * One bucket before the latest rollup of this granularity, or the earliest source row
+     * if there are no rollups yet; null if there is nothing to roll up.
+     *
+     * Never earlier than the first whole bucket after sourcePurgedBefore: older source rows
+     * may already be purged, and rebuilding those buckets would delete rollups for good.
+     */
+    private LocalDateTime recomputeFrom(String granularity, String earliestSourceSql, ChronoUnit unit,
+            LocalDateTime sourcePurgedBefore) {
+        Timestamp latest = jdbcTemplate.queryForObject(
+                "SELECT MAX(bucket_start) FROM notification_rollups WHERE granularity = ?",
+                Timestamp.class, granularity);
+        if (latest != null) {
+            LocalDateTime from = latest.toLocalDateTime().minus(1, unit);
+            LocalDateTime firstComplete = sourcePurgedBefore.truncatedTo(unit);
+            if (firstComplete.isBefore(sourcePurgedBefore)) {
+                firstComplete = firstComplete.plus(1, unit);
+            }
+            return from.isBefore(firstComplete) ? firstComplete : from;
+        }
+        Timestamp earliest = jdbcTemplate.queryForObject(earliestSourceSql, Timestamp.class);
+        return earliest == null ? null : earliest.toLocalDateTime().truncatedTo(unit);
+    }
+
+    private int rebuild(String granularity, String insertSql, LocalDateTime from, LocalDateTime to) {
+        Timestamp fromTs = Timestamp.valueOf(from);
+        Timestamp toTs = Timestamp.valueOf(to);
+        jdbcTemplate.update(DELETE_ROLLUPS_SQL, granularity, fromTs, toTs);
+        return jdbcTemplate.update(insertSql, fromTs, toTs);
+    }
+}
@@ -0,0 +1,177 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.ApiToken;
+import com.expiryguard.entity.User;
+import com.expiryguard.repository.ApiTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Personal and service API tokens for automation clients.
+ *
+ * Tokens are 256-bit random values, so they are stored as a plain SHA-256 hash
+ * rather than BCrypt: verification is one hash plus a unique-index lookup.
+ * Successful lookups are cached for cache-ttl-seconds so repeated calls from the
+ * same client skip the database. Revocation evicts the cache on this instance once
+ * it commits (earlier, a concurrent lookup could re-cache the still-active row);
+ * other instances see it once their cache entry expires.
+ */
+@Service
+@Slf4j
+public class ApiTokenService {
+    private static final String TOKEN_PREFIX = "eg_";
+    private static final int MAX_CACHED_TOKENS = 10_000;
+
+    private final ApiTokenRepository apiTokenRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final long cacheTtlNanos;
+    private final int personalTokenDays;
+    private final Map<String, CachedToken> cache = new ConcurrentHashMap<>();
+
+    public ApiTokenService(ApiTokenRepository apiTokenRepository,
+            @Value("${expiryguard.api-token.cache-ttl-seconds:60}") long cacheTtlSeconds,
+            @Value("${expiryguard.api-token.personal-token-days:90}") int personalTokenDays) {
+        this.apiTokenRepository = apiTokenRepository;
+        this.cacheTtlNanos = TimeUnit.SECONDS.toNanos(cacheTtlSeconds);
+        this.personalTokenDays = personalTokenDays;
+    }
+
+    /**
+     * A newly created token. rawToken is only available here and is never stored.
+     */
+    public record CreatedToken(ApiToken token, String rawToken) {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the name is blank
+     */
+    @Transactional
+    public CreatedToken createToken(User user, String name, ApiToken.Type type) {
+        String trimmed = name == null ? "" : name.trim();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Token name is required");
+        }
+        byte[] random = new byte[32];
+        secureRandom.nextBytes(random);
+        String rawToken = TOKEN_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+
+        ApiToken token = new ApiToken();
+        token.setUser(user);
+        token.setName(trimmed);
+        token.setType(type);
+        token.setTokenHash(hash(rawToken));
+        token.setTokenPrefix(rawToken.substring(0, TOKEN_PREFIX.length() + 6));
+        if (type == ApiToken.Type.PERSONAL) {
+            token.setExpiresAt(LocalDateTime.now().plusDays(personalTokenDays));
+        }
+        ApiToken saved = apiTokenRepository.save(token);
+        log.info("{} API token '{}' created for {}", type, trimmed, user.getEmail());
+        return new CreatedToken(saved, rawToken);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ApiToken> getUserTokens(User user) {
+        return apiTokenRepository.findByUserAndActiveOrderByCreatedAtDesc(user, true);
+    }
+
+    @Transactional
+    public void revokeToken(Long tokenId, User user) {
+        apiTokenRepository.findById(tokenId)
+                .filter(token -> token.getUser().getId().equals(user.getId()))
+                .ifPresent(token -> {
+                    token.setActive(false);
+                    apiTokenRepository.save(token);
+                    evictAfterCommit(token.getTokenHash());
+                    log.info("API token '{}' revoked by {}", token.getName(), user.getEmail());
+                });
+    }
+
+    private void evictAfterCommit(String tokenHash) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.remove(tokenHash);
+                }
+            });
+        } else {
+            cache.remove(tokenHash);
+        }
+    }
+
+    /**
+     * Resolve a raw bearer token to the user it acts as.
+     *
+     * @return the user's details, or null if the token is unknown, revoked or expired
+     */
+    public UserDetails authenticate(String rawToken) {
+        if (rawToken == null || !rawToken.startsWith(TOKEN_PREFIX)) {
+            return null;
+        }
+        String tokenHash = hash(rawToken);
+        long now = System.nanoTime();
+
+        CachedToken cached = cache.get(tokenHash);
+        if (cached == null || now > cached.cachedUntil()) {
+            cached = apiTokenRepository.findActiveByTokenHash(tokenHash)
+                    .map(token -> {
+                        // lastUsedAt is only refreshed on cache misses to keep writes off the hot path
+                        apiTokenRepository.updateLastUsedAt(token.getId(), LocalDateTime.now());
+                        return new CachedToken(toUserDetails(token.getUser()), token.getExpiresAt(),
+                                now + cacheTtlNanos);
+                    })
+                    .orElse(null);
+            if (cached == null) {
+                cache.remove(tokenHash);
+                return null;
+            }
+            if (cache.size() >= MAX_CACHED_TOKENS) {
+                cache.clear();
+            }
+            cache.put(tokenHash, cached);
+        }
+
+        if (cached.expiresAt() != null && cached.expiresAt().isBefore(LocalDateTime.now())) {
+            return null;
+        }
+        return cached.user();
+    }
+
+    private UserDetails toUserDetails(User user) {
+        return org.springframework.security.core.userdetails.User.builder()
+                .username(user.getEmail())
+                .password("")
+                .authorities(Collections.emptyList())
+                .build();
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record CachedToken(UserDetails user, LocalDateTime expiresAt, long cachedUntil) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.expiryguard.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome and wall-clock latency of one delivery attempt (an email or a webhook post).
+ */
+public record DeliveryResult(boolean sent, long latencyMs) {
+
+    static DeliveryResult since(boolean sent, long startNanos) {
+        return new DeliveryResult(sent, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+}
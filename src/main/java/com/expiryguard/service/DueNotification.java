@@ -0,0 +1,18 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.Secret;
+import com.expiryguard.entity.ThresholdPolicy;
+
+/**
+ * A secret that owes a notification at one level of its threshold policy.
+ *
+ * @param level      1-based level within the policy
+ * @param levelCount number of levels in the policy
+ * @param threshold  days before expiry of that level (e.g. 7)
+ */
+public record DueNotification(Secret secret, int level, int levelCount, int threshold) {
+
+    public ThresholdPolicy.Urgency urgency() {
+        return ThresholdPolicy.Urgency.of(level, levelCount);
+    }
+}
@@ -1,43 +1,107 @@
 package com.expiryguard.service;
 
 import com.expiryguard.entity.Secret;
+import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
-    private final JavaMailSender mailSender;
+    @Lazy
+    private final SmtpTransportPool transportPool;
 
     public void sendExpiryNotification(Secret secret) {
+        try {
+            transportPool.send(buildExpiryMessage(secret.getUser().getEmail(), secret));
+            log.info("Email sent to {} for secret: {}", secret.getUser().getEmail(), secret.getName());
+        } catch (Exception e) {
+            log.error("Failed to send email to {}: {}", secret.getUser().getEmail(), e.getMessage());
+        }
+    }
+
+    /**
+     * Send one email per recipient covering all of their due secrets,
+     * in parallel over pooled SMTP connections.
+     *
+     * @param secretsByRecipient due secrets grouped by recipient email
+     * @return delivery result per recipient email
+     */
+    public Map<String, DeliveryResult> sendExpiryDigests(Map<String, List<Secret>> secretsByRecipient) {
+        if (secretsByRecipient.isEmpty()) {
+            return Map.of();
+        }
+        List<String> recipients = new ArrayList<>(secretsByRecipient.keySet());
+        List<MimeMessage> messages = recipients.stream()
+                .map(recipient -> {
+                    List<Secret> secrets = secretsByRecipient.get(recipient);
+                    return secrets.size() == 1
+                            ? buildExpiryMessage(recipient, secrets.get(0))
+                            : buildDigestMessage(recipient, secrets);
+                })
+                .toList();
+        List<DeliveryResult> results = transportPool.sendAll(messages);
+
+        Map<String, DeliveryResult> resultsByRecipient = new LinkedHashMap<>();
+        for (int i = 0; i < recipients.size(); i++) {
+            resultsByRecipient.put(recipients.get(i), results.get(i));
+        }
+        long sent = results.stream().filter(DeliveryResult::sent).count();
+        log.info("Sent {} of {} expiry emails", sent, messages.size());
+        return resultsByRecipient;
+    }
+
+    private MimeMessage buildExpiryMessage(String toEmail, Secret secret) {
         long daysRemaining = ChronoUnit.DAYS.between(LocalDate.now(), secret.getExpiryDate());
 
         String subject = "ExpiryGuard reminder: " + secret.getName() + " expires in " + daysRemaining + " days";
         String body = String.format(
-                "Your secret '%s' will expire on %s (%d days remaining).\n\n" +
+                "Your secret '%s'%s will expire on %s (%d days remaining).\n\n" +
                         "Please take necessary action to renew or update it.",
                 secret.getName(),
+                teamSuffix(secret),
                 secret.getExpiryDate(),
                 daysRemaining);
 
         SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(secret.getUser().getEmail());
+        message.setTo(toEmail);
         message.setSubject(subject);
         message.setText(body);
+        return transportPool.createMimeMessage(message);
+    }
 
-        try {
-            mailSender.send(message);
-            log.info("Email sent to {} for secret: {}", secret.getUser().getEmail(), secret.getName());
-        } catch (Exception e) {
-            log.error("Failed to send email to {}: {}", secret.getUser().getEmail(), e.getMessage());
+    private MimeMessage buildDigestMessage(String toEmail, List<Secret> secrets) {
+        StringBuilder items = new StringBuilder();
+        for (Secret secret : secrets) {
+            long daysRemaining = ChronoUnit.DAYS.between(LocalDate.now(), secret.getExpiryDate());
+            items.append(String.format("- %s%s: expires on %s (%d days remaining)\n",
+                    secret.getName(), teamSuffix(secret), secret.getExpiryDate(), daysRemaining));
         }
+
+        String subject = "ExpiryGuard reminder: " + secrets.size() + " secrets expiring soon";
+        String body = "The following secrets will expire soon:\n\n" + items +
+                "\nPlease take necessary action to renew or update them.";
+
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(toEmail);
+        message.setSubject(subject);
+        message.setText(body);
+        return transportPool.createMimeMessage(message);
+    }
+
+    private String teamSuffix(Secret secret) {
+        return secret.getTeam() != null ? " (team " + secret.getTeam().getName() + ")" : "";
     }
 
     public void sendTestEmail(String toEmail) {
@@ -56,11 +120,11 @@ public class EmailService {
         message.setText(body);
 
         try {
-            mailSender.send(message);
+            transportPool.send(transportPool.createMimeMessage(message));
             log.info("Test email sent successfully to: {}", toEmail);
         } catch (Exception e) {
             log.error("Failed to send test email to {}", toEmail, e);
             throw new RuntimeException("Test email failed: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package com.expiryguard.service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Projected notification load per day, as the scheduler would send it.
+ *
+ * @param secretsEvaluated active, unexpired secrets in the snapshot
+ * @param evaluationMillis time spent simulating (excluding snapshot load)
+ */
+public record NotificationForecast(LocalDate startDate, int horizonDays, int secretsEvaluated,
+        long evaluationMillis, List<Day> days) {
+
+    /**
+     * @param notificationsByThreshold secrets notified at each threshold of any policy, in days (descending)
+     * @param emails                   digest emails, one per distinct recipient
+     * @param webhookMessages          per-secret webhook posts plus daily summaries
+     */
+    public record Day(LocalDate date, Map<Integer, Long> notificationsByThreshold, long notifications,
+            long emails, long webhookMessages) {
+    }
+}
@@ -0,0 +1,321 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+/**
+ * Forecasts how many notifications the scheduler will send per day over a horizon,
+ * for the secrets a user can see (personal and team-owned, as in SecretRepository.findVisibleToUser).
+ *
+ * A user's active secrets are loaded once into a columnar snapshot (primitive arrays
+ * of expiry epoch-day, threshold policy, fired levels and recipients) straight from
+ * JDBC, without entity loads. Snapshots are kept per user for snapshot-ttl-seconds
+ * and evicted when their user stops asking. Each forecast replays the scheduler's level rules
+ * (SecretRepository.findDueLevels) against the snapshot in parallel chunks.
+ * A secret fires at most once per level, so its fire days are computed
+ * directly instead of stepping through every day of the horizon.
+ */
+@Service
+@Slf4j
+public class NotificationForecastService {
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final String VISIBLE_TO_USER =
+            "(user_id = ? OR team_id IN (SELECT team_id FROM team_members WHERE user_id = ?))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final WebhookService webhookService;
+    private final ThresholdPolicyService policyService;
+    private final long snapshotTtlNanos;
+
+    private final Map<Long, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private volatile long lastSweep = System.nanoTime();
+
+    public NotificationForecastService(JdbcTemplate jdbcTemplate, @Lazy WebhookService webhookService,
+            ThresholdPolicyService policyService,
+            @Value("${expiryguard.forecast.snapshot-ttl-seconds:300}") long snapshotTtlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.webhookService = webhookService;
+        this.policyService = policyService;
+        this.snapshotTtlNanos = TimeUnit.SECONDS.toNanos(snapshotTtlSeconds);
+    }
+
+    @Transactional(readOnly = true)
+    public NotificationForecast forecast(User user, int horizonDays) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Snapshot current = snapshot(user.getId(), today);
+        return evaluate(current, today, horizonDays,
+                webhookService.getNotificationEndpointCount(), webhookService.getSummaryEndpointCount());
+    }
+
+    /**
+     * Columnar view of active secrets. Recipients are stored CSR-style:
+     * secret i notifies recipients[recipientOffsets[i] .. recipientOffsets[i + 1]).
+     *
+     * @param policy           index into policyThresholds for each secret
+     * @param notifiedLevels   levels already fired, bit i - 1 for level i
+     * @param policyThresholds thresholds of each policy, least urgent first
+     * @param thresholds       distinct thresholds of all policies, descending (the count columns)
+     * @param policyColumns    count column of each policy level
+     * @param recipients       dense user indexes (0 .. userCount - 1)
+     */
+    record Snapshot(LocalDate day, long builtAt, int size, int[] expiryEpochDay, int[] policy,
+            int[] notifiedLevels, int[][] policyThresholds, int[] thresholds, int[][] policyColumns,
+            int[] recipientOffsets, int[] recipients, int userCount) {
+    }
+
+    static NotificationForecast evaluate(Snapshot snapshot, LocalDate today, int horizonDays,
+            int webhookEndpoints, int summaryEndpoints) {
+        long start = System.nanoTime();
+        int chunks = (snapshot.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int todayEpochDay = (int) today.toEpochDay();
+        AtomicReferenceArray<AtomicLongArray> recipientsByDay = new AtomicReferenceArray<>(horizonDays);
+
+        long[][] counts = IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> evaluateChunk(snapshot, chunk * CHUNK_SIZE,
+                        Math.min(snapshot.size(), (chunk + 1) * CHUNK_SIZE), todayEpochDay, horizonDays,
+                        recipientsByDay))
+                .reduce(NotificationForecastService::mergeCounts)
+                .orElseGet(() -> new long[horizonDays][snapshot.thresholds().length]);
+
+        int[] thresholds = snapshot.thresholds();
+        List<NotificationForecast.Day> days = new ArrayList<>(horizonDays);
+        for (int offset = 0; offset < horizonDays; offset++) {
+            Map<Integer, Long> byThreshold = new LinkedHashMap<>();
+            long notifications = 0;
+            for (int t = 0; t < thresholds.length; t++) {
+                byThreshold.put(thresholds[t], counts[offset][t]);
+                notifications += counts[offset][t];
+            }
+            long emails = cardinality(recipientsByDay.get(offset));
+            long webhookMessages = notifications * webhookEndpoints + summaryEndpoints;
+            days.add(new NotificationForecast.Day(today.plusDays(offset), byThreshold, notifications,
+                    emails, webhookMessages));
+        }
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new NotificationForecast(today, horizonDays, snapshot.size(), elapsed, days);
+    }
+
+    /**
+     * Levels are walked least urgent first. Secret enters the band for a level (days
+     * remaining between the next level's threshold + 1 and its own) on the day its days
+     * remaining reaches the threshold, or today if already inside. It fires there unless
+     * the level's bit is already set. Firing a level also settles all less urgent ones,
+     * which have been walked already, so the mask never needs updating here.
+     *
+     * Recipients are marked in one shared bitset per day so digest emails are counted
+     * once per person across all chunks.
+     */
+    private static long[][] evaluateChunk(Snapshot snapshot, int from, int to, int todayEpochDay,
+            int horizonDays, AtomicReferenceArray<AtomicLongArray> recipientsByDay) {
+        long[][] counts = new long[horizonDays][snapshot.thresholds().length];
+
+        for (int i = from; i < to; i++) {
+            int daysRemaining = snapshot.expiryEpochDay()[i] - todayEpochDay;
+            if (daysRemaining < 0) {
+                continue; // Expired secrets are never picked up by the scheduler
+            }
+            int[] thresholds = snapshot.policyThresholds()[snapshot.policy()[i]];
+            int[] columns = snapshot.policyColumns()[snapshot.policy()[i]];
+            int notified = snapshot.notifiedLevels()[i];
+
+            for (int t = 0; t < thresholds.length; t++) {
+                int threshold = thresholds[t];
+                int bandStart = t + 1 < thresholds.length ? thresholds[t + 1] + 1 : 0;
+                if (daysRemaining < bandStart || (notified & (1 << t)) != 0) {
+                    continue;
+                }
+                int offset = daysRemaining - Math.min(threshold, daysRemaining);
+                if (offset >= horizonDays) {
+                    break; // More urgent levels fire even later
+                }
+                counts[offset][columns[t]]++;
+                AtomicLongArray dayRecipients = recipientsByDay.get(offset);
+                if (dayRecipients == null) {
+                    recipientsByDay.compareAndSet(offset, null, new AtomicLongArray((snapshot.userCount() + 63) / 64));
+                    dayRecipients = recipientsByDay.get(offset);
+                }
+                for (int r = snapshot.recipientOffsets()[i]; r < snapshot.recipientOffsets()[i + 1]; r++) {
+                    int recipient = snapshot.recipients()[r];
+                    long mask = 1L << recipient;
+                    if ((dayRecipients.get(recipient >>> 6) & mask) == 0) {
+                        dayRecipients.getAndAccumulate(recipient >>> 6, mask, (word, bit) -> word | bit);
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static long[][] mergeCounts(long[][] a, long[][] b) {
+        for (int day = 0; day < a.length; day++) {
+            for (int t = 0; t < a[day].length; t++) {
+                a[day][t] += b[day][t];
+            }
+        }
+        return a;
+    }
+
+    private static long cardinality(AtomicLongArray bits) {
+        long count = 0;
+        if (bits != null) {
+            for (int i = 0; i < bits.length(); i++) {
+                count += Long.bitCount(bits.get(i));
+            }
+        }
+        return count;
+    }
+
+    private Snapshot snapshot(Long userId, LocalDate today) {
+        long now = System.nanoTime();
+        evictExpired(now);
+        return snapshots.compute(userId, (id, current) -> isStale(current, today, now)
+                ? loadSnapshot(userId, today)
+                : current);
+    }
+
+    private boolean isStale(Snapshot current, LocalDate today, long now) {
+        return current == null || !current.day().equals(today) || now - current.builtAt() > snapshotTtlNanos;
+    }
+
+    /**
+     * Drop snapshots past their TTL, at most once per TTL, so users who stopped asking do not pin memory.
+     */
+    private void evictExpired(long now) {
+        if (now - lastSweep < snapshotTtlNanos) {
+            return;
+        }
+        lastSweep = now;
+        snapshots.values().removeIf(current -> now - current.builtAt() > snapshotTtlNanos);
+    }
+
+    private Snapshot loadSnapshot(Long userId, LocalDate today) {
+        long start = System.nanoTime();
+        Map<Long, Integer> userIndexes = new HashMap<>();
+
+        // Only the default policy and policies of the user's secrets become count columns
+        long defaultPolicyId = policyService.getDefaultPolicy().getId();
+        Map<Long, Integer> policyIndexes = new HashMap<>();
+        List<int[]> policyThresholds = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, thresholds FROM threshold_policies WHERE id = ? OR id IN " +
+                "(SELECT policy_id FROM secrets WHERE active = true AND " + VISIBLE_TO_USER + ")", rs -> {
+            Object[] values = (Object[]) rs.getArray(2).getArray();
+            int[] thresholds = new int[values.length];
+            for (int t = 0; t < values.length; t++) {
+                thresholds[t] = ((Number) values[t]).intValue();
+            }
+            policyIndexes.put(rs.getLong(1), policyThresholds.size());
+            policyThresholds.add(thresholds);
+        }, defaultPolicyId, userId, userId);
+        int[] columnThresholds = policyThresholds.stream()
+                .flatMapToInt(Arrays::stream)
+                .map(days -> -days).distinct().sorted().map(days -> -days)
+                .toArray();
+        int[][] policyColumns = new int[policyThresholds.size()][];
+        for (int p = 0; p < policyColumns.length; p++) {
+            policyColumns[p] = Arrays.stream(policyThresholds.get(p))
+                    .map(threshold -> indexOf(columnThresholds, threshold))
+                    .toArray();
+        }
+
+        Map<Long, IntBuffer> teamMembers = new HashMap<>();
+        jdbcTemplate.query("SELECT team_id, user_id FROM team_members " +
+                "WHERE team_id IN (SELECT team_id FROM team_members WHERE user_id = ?)", rs -> {
+            int userIndex = userIndexes.computeIfAbsent(rs.getLong(2), id -> userIndexes.size());
+            teamMembers.computeIfAbsent(rs.getLong(1), id -> new IntBuffer()).add(userIndex);
+        }, userId);
+
+        IntBuffer expiry = new IntBuffer();
+        IntBuffer policy = new IntBuffer();
+        IntBuffer notifiedLevels = new IntBuffer();
+        IntBuffer recipientOffsets = new IntBuffer();
+        IntBuffer recipients = new IntBuffer();
+        recipientOffsets.add(0);
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT expiry_date, COALESCE(notified_levels, 0), COALESCE(policy_id, ?), user_id, team_id " +
+                            "FROM secrets WHERE active = true AND expiry_date >= ? AND " + VISIBLE_TO_USER);
+            statement.setFetchSize(10_000);
+            statement.setLong(1, defaultPolicyId);
+            statement.setObject(2, today);
+            statement.setLong(3, userId);
+            statement.setLong(4, userId);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+                    expiry.add((int) rs.getObject(1, LocalDate.class).toEpochDay());
+                    notifiedLevels.add(rs.getInt(2));
+                    // A policy created after the policies were read falls back to the default
+                    policy.add(policyIndexes.getOrDefault(rs.getLong(3), policyIndexes.get(defaultPolicyId)));
+
+                    long teamId = rs.getLong(5);
+                    IntBuffer members = rs.wasNull() ? null : teamMembers.get(teamId);
+                    if (members != null) {
+                        recipients.addAll(members);
+                    } else {
+                        recipients.add(userIndexes.computeIfAbsent(rs.getLong(4), id -> userIndexes.size()));
+                    }
+                    recipientOffsets.add(recipients.size);
+                });
+
+        Snapshot loaded = new Snapshot(today, System.nanoTime(), expiry.size, expiry.toArray(), policy.toArray(),
+                notifiedLevels.toArray(), policyThresholds.toArray(int[][]::new), columnThresholds, policyColumns,
+                recipientOffsets.toArray(), recipients.toArray(), userIndexes.size());
+        log.info("Loaded forecast snapshot for user {}: {} secrets, {} recipients in {} ms", userId,
+                loaded.size(), loaded.userCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return loaded;
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown threshold: " + value);
+    }
+
+    private static final class IntBuffer {
+        private int[] data = new int[1024];
+        private int size;
+
+        private void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        private void addAll(IntBuffer other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.data[i]);
+            }
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
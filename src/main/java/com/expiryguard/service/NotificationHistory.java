@@ -0,0 +1,26 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.NotificationEvent;
+import com.expiryguard.entity.NotificationRollup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivery counts per time bucket, read from the hourly or daily rollups.
+ * Buckets are contiguous (empty periods included) and start times are UTC.
+ */
+public record NotificationHistory(NotificationRollup.Granularity granularity, LocalDateTime from,
+        long sent, long failed, List<Bucket> buckets) {
+
+    /**
+     * @param avgLatencyMs mean latency over all attempts in the bucket
+     */
+    public record Bucket(LocalDateTime start, long sent, long failed, long avgLatencyMs, long maxLatencyMs,
+            Map<NotificationEvent.Channel, ChannelCounts> channels) {
+    }
+
+    public record ChannelCounts(long sent, long failed) {
+    }
+}
@@ -0,0 +1,99 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.NotificationEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only delivery history, kept off the send path.
+ *
+ * record() only enqueues; a scheduled flush drains the queue and inserts the
+ * events with JDBC batch statements (no entity loads, no per-row round trips).
+ * If the database falls behind and the queue fills, new events are dropped and
+ * counted rather than blocking delivery.
+ */
+@Component
+@Slf4j
+public class NotificationHistoryRecorder implements DisposableBean {
+    private static final String INSERT_SQL = "INSERT INTO notification_events "
+            + "(secret_id, recipient, channel, threshold, outcome, latency_ms, occurred_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final BlockingQueue<NotificationEvent> queue;
+    private final AtomicLong dropped = new AtomicLong();
+
+    public NotificationHistoryRecorder(JdbcTemplate jdbcTemplate,
+            @Value("${expiryguard.history.batch-size:500}") int batchSize,
+            @Value("${expiryguard.history.queue-capacity:100000}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    public void record(Long secretId, String recipient, NotificationEvent.Channel channel, int threshold,
+            DeliveryResult result) {
+        NotificationEvent event = new NotificationEvent(null, secretId, recipient, channel, threshold,
+                result.sent() ? NotificationEvent.Outcome.SENT : NotificationEvent.Outcome.FAILED,
+                result.latencyMs(), LocalDateTime.now(ZoneOffset.UTC));
+        if (!queue.offer(event)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Write queued events in batches of batch-size.
+     *
+     * @return number of events written
+     */
+    @Scheduled(fixedDelayString = "${expiryguard.history.flush-interval-ms:2000}")
+    public synchronized int flush() {
+        long droppedSinceLastFlush = dropped.getAndSet(0);
+        if (droppedSinceLastFlush > 0) {
+            log.warn("Notification history queue full, dropped {} events", droppedSinceLastFlush);
+        }
+
+        int written = 0;
+        List<NotificationEvent> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, event) -> {
+                    ps.setLong(1, event.getSecretId());
+                    ps.setString(2, event.getRecipient());
+                    ps.setString(3, event.getChannel().name());
+                    ps.setInt(4, event.getThreshold());
+                    ps.setString(5, event.getOutcome().name());
+                    ps.setLong(6, event.getLatencyMs());
+                    ps.setTimestamp(7, Timestamp.valueOf(event.getOccurredAt()));
+                });
+                written += batch.size();
+            } catch (Exception e) {
+                log.error("Failed to write {} notification history events: {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+        if (written > 0) {
+            log.debug("Wrote {} notification history events", written);
+        }
+        return written;
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+}
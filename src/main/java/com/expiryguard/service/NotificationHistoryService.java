@@ -0,0 +1,99 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.NotificationEvent;
+import com.expiryguard.entity.NotificationRollup;
+import com.expiryguard.entity.User;
+import com.expiryguard.repository.NotificationEventRepository;
+import com.expiryguard.repository.NotificationRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read side of the notification history: charts come from the rollups,
+ * per-secret detail from the raw events still inside the retention period.
+ * Both only cover secrets the user owns personally or through a team.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class NotificationHistoryService {
+    private final NotificationRollupRepository rollupRepository;
+    private final NotificationEventRepository eventRepository;
+
+    /**
+     * @param periods number of hours or days to return, ending with the current one
+     */
+    public NotificationHistory getHistory(User user, NotificationRollup.Granularity granularity, int periods) {
+        ChronoUnit unit = granularity == NotificationRollup.Granularity.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS;
+        LocalDateTime from = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(unit).minus(periods - 1L, unit);
+
+        Map<LocalDateTime, List<NotificationRollup>> rowsByBucket = new LinkedHashMap<>();
+        for (int i = 0; i < periods; i++) {
+            rowsByBucket.put(from.plus(i, unit), new ArrayList<>());
+        }
+        for (NotificationRollup rollup : rollupRepository.findVisibleToUser(granularity, from, user.getId())) {
+            List<NotificationRollup> rows = rowsByBucket.get(rollup.getBucketStart());
+            if (rows != null) {
+                rows.add(rollup);
+            }
+        }
+
+        long totalSent = 0;
+        long totalFailed = 0;
+        List<NotificationHistory.Bucket> buckets = new ArrayList<>(periods);
+        for (Map.Entry<LocalDateTime, List<NotificationRollup>> entry : rowsByBucket.entrySet()) {
+            NotificationHistory.Bucket bucket = toBucket(entry.getKey(), entry.getValue());
+            totalSent += bucket.sent();
+            totalFailed += bucket.failed();
+            buckets.add(bucket);
+        }
+        return new NotificationHistory(granularity, from, totalSent, totalFailed, buckets);
+    }
+
+    /**
+     * Most recent delivery attempts for one secret, newest first.
+     * Callers check the user can access the secret (SecretService.canAccess).
+     */
+    public List<NotificationEvent> getSecretEvents(Long secretId, int limit) {
+        return eventRepository.findBySecretIdOrderByOccurredAtDesc(secretId, Limit.of(limit));
+    }
+
+    private NotificationHistory.Bucket toBucket(LocalDateTime start, List<NotificationRollup> rows) {
+        long sent = 0;
+        long failed = 0;
+        long totalLatency = 0;
+        long maxLatency = 0;
+        Map<NotificationEvent.Channel, long[]> byChannel = new EnumMap<>(NotificationEvent.Channel.class);
+        for (NotificationRollup row : rows) {
+            long[] counts = byChannel.computeIfAbsent(row.getChannel(), c -> new long[2]);
+            if (row.getOutcome() == NotificationEvent.Outcome.SENT) {
+                sent += row.getMessageCount();
+                counts[0] += row.getMessageCount();
+            } else {
+                failed += row.getMessageCount();
+                counts[1] += row.getMessageCount();
+            }
+            totalLatency += row.getTotalLatencyMs();
+            maxLatency = Math.max(maxLatency, row.getMaxLatencyMs());
+        }
+
+        Map<NotificationEvent.Channel, NotificationHistory.ChannelCounts> channels =
+                new EnumMap<>(NotificationEvent.Channel.class);
+        byChannel.forEach((channel, counts) ->
+                channels.put(channel, new NotificationHistory.ChannelCounts(counts[0], counts[1])));
+        long attempts = sent + failed;
+        return new NotificationHistory.Bucket(start, sent, failed, attempts == 0 ? 0 : totalLatency / attempts,
+                maxLatency, channels);
+    }
+}
@@ -0,0 +1,360 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.Secret;
+import com.expiryguard.entity.User;
+import com.expiryguard.repository.SecretRepository;
+import com.expiryguard.repository.TeamRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * In-process trigram index over secret names and notes, one per user.
+ *
+ * A user's index covers personal and team-owned secrets. It is built from the
+ * database on their first search and kept in sync by SecretService on add/delete
+ * and by TeamService on membership changes. Indexes older than index-ttl-minutes are
+ * rebuilt so writes made by other instances are eventually picked up, and evicted
+ * when their user stops searching.
+ *
+ * Rebuilds load from the database without holding any map lock. Saves are applied
+ * after their transaction commits and are also recorded by every rebuild in flight;
+ * before a rebuilt index is swapped in, the recorded saves that belong to its user
+ * are replayed onto it, so a save is either visible to the rebuild's query or
+ * applied to the rebuilt index. Saves for other users never invalidate a rebuild.
+ * That only holds if the load sees every committed save, so it always reads from
+ * the primary in its own read-write transaction, even when the search itself runs
+ * read-only on a (possibly lagging) replica.
+ *
+ * Queries of 3+ characters intersect trigram posting lists, so only candidate
+ * secrets are checked for a substring match instead of scanning every row.
+ */
+@Component
+@Slf4j
+public class SecretSearchIndex {
+    private final SecretRepository secretRepository;
+    private final TeamRepository teamRepository;
+    private final TransactionTemplate primaryTransaction;
+    private final long ttlNanos;
+    private final Map<Long, UserIndex> indexes = new ConcurrentHashMap<>();
+    private final Set<Rebuild> rebuilds = ConcurrentHashMap.newKeySet();
+    private volatile long lastSweep = System.nanoTime();
+
+    public SecretSearchIndex(SecretRepository secretRepository, TeamRepository teamRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${expiryguard.search.index-ttl-minutes:10}") long ttlMinutes) {
+        this.secretRepository = secretRepository;
+        this.teamRepository = teamRepository;
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.primaryTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttlNanos = TimeUnit.MINUTES.toNanos(ttlMinutes);
+    }
+
+    /**
+     * @param policyId threshold policy, or null for the default policy
+     */
+    public record IndexedSecret(Long id, String name, String notes, LocalDate expiryDate, Long policyId) {
+    }
+
+    public record SearchMatches(List<IndexedSecret> matches, long total) {
+    }
+
+    /**
+     * Find a user's secrets whose name or notes contain the query (case-insensitive),
+     * with expiry between from and to (inclusive, either may be null) that pass the filter.
+     * Results are ranked: exact name, name prefix, name word prefix, name substring, notes.
+     */
+    public SearchMatches search(User user, String query, LocalDate from, LocalDate to,
+            Predicate<IndexedSecret> filter, int page, int size) {
+        String q = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        UserIndex index = indexFor(user);
+
+        List<Ranked> ranked = new ArrayList<>();
+        synchronized (index) {
+            for (Entry entry : index.candidates(q)) {
+                if ((from != null && entry.secret.expiryDate().isBefore(from))
+                        || (to != null && entry.secret.expiryDate().isAfter(to))
+                        || !filter.test(entry.secret)) {
+                    continue;
+                }
+                int rank = rank(entry, q);
+                if (rank >= 0) {
+                    ranked.add(new Ranked(entry.secret, rank));
+                }
+            }
+        }
+
+        ranked.sort(Comparator.comparingInt(Ranked::rank)
+                .thenComparing(r -> r.secret().expiryDate())
+                .thenComparing(r -> r.secret().name(), String.CASE_INSENSITIVE_ORDER));
+
+        int start = (int) Math.min((long) page * size, ranked.size());
+        int end = (int) Math.min((long) start + size, ranked.size());
+        List<IndexedSecret> matches = ranked.subList(start, end).stream().map(Ranked::secret).toList();
+        return new SearchMatches(matches, ranked.size());
+    }
+
+    /**
+     * Called by SecretService after a secret is saved; applied once the transaction commits.
+     */
+    public void onSecretSaved(Secret secret) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(secret);
+                }
+            });
+        } else {
+            apply(secret);
+        }
+    }
+
+    /**
+     * Drop a user's index so it is rebuilt on their next search (e.g. after joining a team).
+     */
+    public void invalidate(User user) {
+        for (Rebuild rebuild : rebuilds) {
+            if (rebuild.userId.equals(user.getId())) {
+                rebuild.invalidate();
+            }
+        }
+        indexes.remove(user.getId());
+    }
+
+    private void apply(Secret secret) {
+        // Record first: a rebuild that drains after this point has not been swapped in yet,
+        // so the update below reaches its index instead
+        for (Rebuild rebuild : rebuilds) {
+            rebuild.record(secret);
+        }
+        for (Long userId : indexes.keySet()) {
+            indexes.computeIfPresent(userId, (id, index) -> {
+                index.apply(id, secret);
+                return index;
+            });
+        }
+    }
+
+    private UserIndex indexFor(User user) {
+        long now = System.nanoTime();
+        evictExpired(now);
+        UserIndex index = indexes.get(user.getId());
+        if (index != null && !index.isExpired(now, ttlNanos)) {
+            return index;
+        }
+
+        Rebuild rebuild = new Rebuild(user.getId());
+        rebuilds.add(rebuild);
+        try {
+            UserIndex built = primaryTransaction.execute(status -> load(user));
+            log.debug("Built search index for user {} with {} secrets", user.getId(), built.entries.size());
+            return indexes.compute(user.getId(), (id, existing) -> {
+                // Keep an index built by a concurrent search that started after this one
+                if (existing != null && existing.builtAt - built.builtAt > 0 && !existing.isExpired(now, ttlNanos)) {
+                    return existing;
+                }
+                rebuild.replayOnto(built);
+                return built;
+            });
+        } finally {
+            rebuilds.remove(rebuild);
+        }
+    }
+
+    private UserIndex load(User user) {
+        UserIndex built = new UserIndex(new HashSet<>(teamRepository.findTeamIdsByMember(user)));
+        for (Secret secret : secretRepository.findVisibleToUser(user)) {
+            built.add(secret);
+        }
+        return built;
+    }
+
+    /**
+     * Drop indexes past their TTL, at most once per TTL, so users who stopped searching do not pin memory.
+     */
+    private void evictExpired(long now) {
+        if (now - lastSweep < ttlNanos) {
+            return;
+        }
+        lastSweep = now;
+        indexes.values().removeIf(index -> index.isExpired(now, ttlNanos));
+    }
+
+    private int rank(Entry entry, String q) {
+        if (q.isEmpty()) {
+            return 0;
+        }
+        int namePos = entry.name.indexOf(q);
+        if (namePos == 0) {
+            return entry.name.length() == q.length() ? 0 : 1;
+        }
+        if (namePos > 0) {
+            return Character.isLetterOrDigit(entry.name.charAt(namePos - 1)) ? 3 : 2;
+        }
+        return entry.notes.contains(q) ? 4 : -1;
+    }
+
+    private static long trigram(String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    private record Ranked(IndexedSecret secret, int rank) {
+    }
+
+    /**
+     * Saves committed while one user's index is being loaded.
+     */
+    private static final class Rebuild {
+        private final Long userId;
+        private final List<Secret> saved = new ArrayList<>();
+        private boolean invalidated;
+
+        private Rebuild(Long userId) {
+            this.userId = userId;
+        }
+
+        private synchronized void record(Secret secret) {
+            saved.add(secret);
+        }
+
+        private synchronized void invalidate() {
+            invalidated = true;
+        }
+
+        private synchronized void replayOnto(UserIndex built) {
+            for (Secret secret : saved) {
+                built.apply(userId, secret);
+            }
+            saved.clear();
+            // Team membership changed mid-load; serve this result once, rebuild on the next search
+            built.stale = invalidated;
+        }
+    }
+
+    private static final class Entry {
+        private final IndexedSecret secret;
+        private final String name;
+        private final String notes;
+
+        private Entry(IndexedSecret secret) {
+            this.secret = secret;
+            this.name = secret.name().toLowerCase(Locale.ROOT);
+            this.notes = secret.notes() == null ? "" : secret.notes().toLowerCase(Locale.ROOT);
+        }
+
+        private Set<Long> trigrams() {
+            Set<Long> trigrams = new HashSet<>();
+            for (String text : List.of(name, notes)) {
+                for (int i = 0; i + 3 <= text.length(); i++) {
+                    trigrams.add(trigram(text, i));
+                }
+            }
+            return trigrams;
+        }
+    }
+
+    private static final class UserIndex {
+        private final long builtAt = System.nanoTime();
+        private final Set<Long> teamIds;
+        private volatile boolean stale;
+        private final Map<Long, Entry> entries = new HashMap<>();
+        private final Map<Long, Set<Long>> postings = new HashMap<>();
+
+        private UserIndex(Set<Long> teamIds) {
+            this.teamIds = teamIds;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return stale || now - builtAt > ttlNanos;
+        }
+
+        /**
+         * Update the entry for a saved secret if it belongs to this index's user.
+         */
+        private synchronized void apply(Long userId, Secret secret) {
+            if (!userId.equals(secret.getUser().getId())
+                    && (secret.getTeam() == null || !teamIds.contains(secret.getTeam().getId()))) {
+                return;
+            }
+            remove(secret.getId());
+            if (secret.isActive()) {
+                add(secret);
+            }
+        }
+
+        private void add(Secret secret) {
+            Entry entry = new Entry(new IndexedSecret(secret.getId(), secret.getName(), secret.getNotes(),
+                    secret.getExpiryDate(), secret.getPolicy() != null ? secret.getPolicy().getId() : null));
+            entries.put(secret.getId(), entry);
+            for (Long trigram : entry.trigrams()) {
+                postings.computeIfAbsent(trigram, k -> new HashSet<>()).add(secret.getId());
+            }
+        }
+
+        private void remove(Long secretId) {
+            Entry entry = entries.remove(secretId);
+            if (entry == null) {
+                return;
+            }
+            for (Long trigram : entry.trigrams()) {
+                Set<Long> ids = postings.get(trigram);
+                if (ids != null) {
+                    ids.remove(secretId);
+                    if (ids.isEmpty()) {
+                        postings.remove(trigram);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Secrets that contain every trigram of the query; all secrets for queries under 3 chars.
+         */
+        private Collection<Entry> candidates(String q) {
+            if (q.length() < 3) {
+                return entries.values();
+            }
+            List<Set<Long>> lists = new ArrayList<>();
+            for (int i = 0; i + 3 <= q.length(); i++) {
+                Set<Long> ids = postings.get(trigram(q, i));
+                if (ids == null) {
+                    return List.of();
+                }
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+
+            List<Entry> candidates = new ArrayList<>();
+            for (Long id : lists.get(0)) {
+                boolean inAll = true;
+                for (int i = 1; i < lists.size() && inAll; i++) {
+                    inAll = lists.get(i).contains(id);
+                }
+                if (inAll) {
+                    candidates.add(entries.get(id));
+                }
+            }
+            return candidates;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.expiryguard.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One page of secret search results.
+ */
+public record SecretSearchResult(List<Hit> results, int page, int size, long totalResults) {
+
+    public record Hit(Long id, String name, String notes, LocalDate expiryDate, long daysRemaining, String urgency) {
+    }
+}
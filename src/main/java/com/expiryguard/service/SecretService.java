@@ -1,142 +1,298 @@
 package com.expiryguard.service;
 
 import com.expiryguard.entity.Secret;
+import com.expiryguard.entity.ThresholdPolicy;
 import com.expiryguard.entity.User;
 import com.expiryguard.repository.SecretRepository;
+import com.expiryguard.repository.TeamRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SecretService {
     private final SecretRepository secretRepository;
+    private final TeamRepository teamRepository;
+    private final SecretSearchIndex searchIndex;
+    private final ThresholdPolicyService policyService;
 
+    /**
+     * Active secrets the user owns personally or through any of their teams.
+     */
+    @Transactional(readOnly = true)
     public List<Secret> getUserSecrets(User user) {
-        return secretRepository.findByUserAndActiveOrderByExpiryDateAsc(user, true);
+        return secretRepository.findVisibleToUser(user);
     }
 
     public Secret addSecret(User user, String name, LocalDate expiryDate, String notes) {
+        return addSecret(user, name, expiryDate, notes, null, null);
+    }
+
+    /**
+     * Add a secret, owned by a team when teamId is set and notified on the given
+     * threshold policy (the default policy when policyId is null).
+     *
+     * @throws IllegalArgumentException if the user is not a member of the team or cannot use the policy
+     */
+    @Transactional
+    public Secret addSecret(User user, String name, LocalDate expiryDate, String notes, Long teamId,
+            Long policyId) {
         Secret secret = new Secret();
         secret.setUser(user);
+        secret.setPolicy(resolvePolicy(user, policyId));
+        if (teamId != null) {
+            if (!teamRepository.existsByIdAndMembers_Id(teamId, user.getId())) {
+                throw new IllegalArgumentException("You are not a member of this team");
+            }
+            secret.setTeam(teamRepository.getReferenceById(teamId));
+        }
         secret.setName(name);
         secret.setExpiryDate(expiryDate);
         secret.setNotes(notes);
-        return secretRepository.save(secret);
+        Secret saved = secretRepository.save(secret);
+        searchIndex.onSecretSaved(saved);
+        return saved;
     }
 
-    public void deleteSecret(Long secretId, User user) {
-        secretRepository.findById(secretId)
-                .filter(secret -> secret.getUser().getId().equals(user.getId()))
-                .ifPresent(secret -> {
+    /**
+     * @return true if the secret existed and the user could delete it
+     */
+    @Transactional
+    public boolean deleteSecret(Long secretId, User user) {
+        return secretRepository.findById(secretId)
+                .filter(secret -> secret.isActive() && canManage(secret, user))
+                .map(secret -> {
                     secret.setActive(false);
                     secretRepository.save(secret);
+                    searchIndex.onSecretSaved(secret);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Update a secret's name, expiry, notes and policy (null fields are left unchanged).
+     * A new expiry date or policy re-arms notifications, e.g. after a certificate is renewed.
+     *
+     * @return the updated secret, or empty if not found or the user cannot manage it
+     * @throws IllegalArgumentException if the user cannot use the policy
+     */
+    @Transactional
+    public Optional<Secret> updateSecret(Long secretId, User user, String name, LocalDate expiryDate, String notes,
+            Long policyId) {
+        ThresholdPolicy policy = resolvePolicy(user, policyId);
+        return secretRepository.findById(secretId)
+                .filter(secret -> secret.isActive() && canManage(secret, user))
+                .map(secret -> {
+                    if (name != null) {
+                        secret.setName(name);
+                    }
+                    if (expiryDate != null && !expiryDate.equals(secret.getExpiryDate())) {
+                        secret.setExpiryDate(expiryDate);
+                        resetNotifications(secret);
+                    }
+                    if (policy != null && (secret.getPolicy() == null
+                            || !policy.getId().equals(secret.getPolicy().getId()))) {
+                        secret.setPolicy(policy);
+                        resetNotifications(secret);
+                    }
+                    if (notes != null) {
+                        secret.setNotes(notes);
+                    }
+                    Secret saved = secretRepository.save(secret);
+                    searchIndex.onSecretSaved(saved);
+                    return saved;
                 });
     }
 
+    private ThresholdPolicy resolvePolicy(User user, Long policyId) {
+        if (policyId == null) {
+            return null;
+        }
+        return policyService.getPolicy(user, policyId)
+                .orElseThrow(() -> new IllegalArgumentException("Threshold policy not found"));
+    }
+
+    private void resetNotifications(Secret secret) {
+        secret.setLastNotifiedOn(null);
+        secret.setLastNotifiedThreshold(null);
+        secret.setNotifiedLevels(0);
+    }
+
     /**
-     * Get all active secrets expiring within the next maxDays days.
+     * @return true if the secret exists and the user can see it (owner or team member)
      */
-    public List<Secret> getSecretsExpiringWithin(int maxDays) {
-        LocalDate today = LocalDate.now(ZoneOffset.UTC);
-        LocalDate maxDate = today.plusDays(maxDays);
-        return secretRepository.findSecretsExpiringBefore(today, maxDate);
+    @Transactional(readOnly = true)
+    public boolean canAccess(Long secretId, User user) {
+        return secretRepository.findById(secretId)
+                .filter(secret -> canManage(secret, user))
+                .isPresent();
     }
 
     /**
-     * Calculate days remaining until expiry (using UTC).
+     * The owner can always manage a secret; team members can manage team-owned secrets.
      */
-    public long getDaysRemaining(Secret secret) {
-        return ChronoUnit.DAYS.between(LocalDate.now(ZoneOffset.UTC), secret.getExpiryDate());
+    private boolean canManage(Secret secret, User user) {
+        if (secret.getUser().getId().equals(user.getId())) {
+            return true;
+        }
+        return secret.getTeam() != null
+                && teamRepository.existsByIdAndMembers_Id(secret.getTeam().getId(), user.getId());
     }
 
     /**
-     * Determine the current threshold based on days remaining.
-     * 
-     * @return 3 (URGENT), 7 (WARNING), 30 (NOTICE), or -1 (no notification needed)
+     * Search a user's active secrets by name/notes substring, expiry range and urgency.
+     * Urgency is evaluated against each secret's own threshold policy.
+     *
+     * @param urgency URGENT, WARNING, NOTICE or OK (null for any)
+     * @throws IllegalArgumentException for an unknown urgency
      */
-    public int getCurrentThreshold(long daysRemaining) {
-        if (daysRemaining <= 3) {
-            return 3; // URGENT
-        } else if (daysRemaining <= 7) {
-            return 7; // WARNING
-        } else if (daysRemaining <= 30) {
-            return 30; // NOTICE
+    @Transactional(readOnly = true)
+    public SecretSearchResult searchSecrets(User user, String query, LocalDate from, LocalDate to,
+            String urgency, int page, int size) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Map<Long, int[]> thresholdsByPolicy = policyService.getThresholdsByPolicy(user);
+        int[] defaultThresholds = policyService.getDefaultPolicy().getThresholds();
+        Function<SecretSearchIndex.IndexedSecret, String> labelOf = secret -> urgencyLabel(
+                thresholdsByPolicy.getOrDefault(secret.policyId(), defaultThresholds),
+                ChronoUnit.DAYS.between(today, secret.expiryDate()));
+
+        Predicate<SecretSearchIndex.IndexedSecret> filter = secret -> true;
+        if (urgency != null && !urgency.isBlank()) {
+            String wanted = urgency.trim().toUpperCase(Locale.ROOT);
+            if (!wanted.equals("OK")) {
+                try {
+                    ThresholdPolicy.Urgency.valueOf(wanted);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown urgency: " + urgency);
+                }
+            }
+            filter = secret -> labelOf.apply(secret).equals(wanted);
         }
-        return -1; // No notification (>30 days)
+
+        SecretSearchIndex.SearchMatches matches = searchIndex.search(user, query, from, to, filter, page, size);
+        List<SecretSearchResult.Hit> hits = matches.matches().stream()
+                .map(secret -> new SecretSearchResult.Hit(secret.id(), secret.name(), secret.notes(),
+                        secret.expiryDate(), ChronoUnit.DAYS.between(today, secret.expiryDate()),
+                        labelOf.apply(secret)))
+                .toList();
+        return new SecretSearchResult(hits, page, size, matches.total());
+    }
+
+    private static String urgencyLabel(int[] thresholds, long daysRemaining) {
+        int level = ThresholdPolicyService.levelFor(thresholds, daysRemaining);
+        return level > 0 ? ThresholdPolicy.Urgency.of(level, thresholds.length).name() : "OK";
     }
 
     /**
-     * Determine if a notification should be sent and at what threshold.
-     * 
-     * State-based logic:
-     * - If never notified (lastNotifiedThreshold is null) → notify at current
-     * threshold
-     * - If currentThreshold < lastNotifiedThreshold → escalate (more urgent)
-     * - Otherwise → no notification (same or less urgent threshold already sent)
-     * 
-     * @return threshold to notify (3, 7, 30) or -1 if no notification needed
+     * Secrets that owe a notification today and the policy level to send.
+     *
+     * Which secrets are due, and at which level, is decided by a single set-based query
+     * (SecretRepository.findDueLevels); only the due secrets are then loaded.
      */
-    public int getNotificationThreshold(Secret secret) {
-        long daysRemaining = getDaysRemaining(secret);
-        int currentThreshold = getCurrentThreshold(daysRemaining);
+    public List<DueNotification> getDueNotifications() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate maxDate = today.plusDays(policyService.getMaxThreshold());
+        List<SecretRepository.DueLevel> dueLevels = secretRepository.findDueLevels(today, maxDate,
+                policyService.getDefaultPolicy().getId());
+        if (dueLevels.isEmpty()) {
+            return List.of();
+        }
 
-        // No notification if >30 days remaining
-        if (currentThreshold == -1) {
-            return -1;
+        Map<Long, Secret> secrets = new HashMap<>();
+        for (Secret secret : secretRepository.findWithOwnersByIdIn(
+                dueLevels.stream().map(SecretRepository.DueLevel::getSecretId).toList())) {
+            secrets.put(secret.getId(), secret);
+        }
+        List<DueNotification> due = new ArrayList<>(dueLevels.size());
+        for (SecretRepository.DueLevel dueLevel : dueLevels) {
+            Secret secret = secrets.get(dueLevel.getSecretId());
+            if (secret != null) {
+                due.add(new DueNotification(secret, dueLevel.getLevel(), dueLevel.getLevelCount(),
+                        dueLevel.getThreshold()));
+            }
         }
+        due.sort(Comparator.comparing((DueNotification notification) -> notification.secret().getExpiryDate())
+                .thenComparing(notification -> notification.secret().getName()));
+        return due;
+    }
 
-        Integer lastThreshold = secret.getLastNotifiedThreshold();
+    /**
+     * Active secrets that have not expired yet.
+     */
+    public long countMonitoredSecrets() {
+        return secretRepository.countByActiveTrueAndExpiryDateGreaterThanEqual(LocalDate.now(ZoneOffset.UTC));
+    }
 
-        // Never notified → send notification at current threshold
-        if (lastThreshold == null) {
-            log.debug("Secret '{}': never notified, will notify at {}-day threshold",
-                    secret.getName(), currentThreshold);
-            return currentThreshold;
+    /**
+     * Group due secrets by the email address that should be notified.
+     *
+     * Personal secrets go to their owner; team-owned secrets go to every team member.
+     * Members of all due team secrets are resolved in one query, so each person can
+     * receive a single message covering all their due secrets.
+     */
+    public Map<String, List<Secret>> groupByRecipient(List<Secret> dueSecrets) {
+        List<Long> teamSecretIds = dueSecrets.stream()
+                .filter(secret -> secret.getTeam() != null)
+                .map(Secret::getId)
+                .toList();
+        Map<Long, List<String>> teamRecipients = new HashMap<>();
+        if (!teamSecretIds.isEmpty()) {
+            for (SecretRepository.SecretRecipient recipient : secretRepository
+                    .findTeamRecipientsByIdIn(teamSecretIds)) {
+                teamRecipients.computeIfAbsent(recipient.getSecretId(), id -> new ArrayList<>())
+                        .add(recipient.getEmail());
+            }
         }
 
-        // Escalation: current threshold is more urgent (lower number) than last
-        if (currentThreshold < lastThreshold) {
-            log.debug("Secret '{}': escalating from {}-day to {}-day threshold",
-                    secret.getName(), lastThreshold, currentThreshold);
-            return currentThreshold;
+        Map<String, List<Secret>> byRecipient = new LinkedHashMap<>();
+        for (Secret secret : dueSecrets) {
+            List<String> recipients = secret.getTeam() != null
+                    ? teamRecipients.getOrDefault(secret.getId(), List.of(secret.getUser().getEmail()))
+                    : List.of(secret.getUser().getEmail());
+            for (String email : recipients) {
+                byRecipient.computeIfAbsent(email, e -> new ArrayList<>()).add(secret);
+            }
         }
+        return byRecipient;
+    }
 
-        // Same or less urgent threshold already sent
-        log.debug("Secret '{}': already notified at {}-day threshold (current: {})",
-                secret.getName(), lastThreshold, currentThreshold);
-        return -1;
+    /**
+     * Calculate days remaining until expiry (using UTC).
+     */
+    public long getDaysRemaining(Secret secret) {
+        return ChronoUnit.DAYS.between(LocalDate.now(ZoneOffset.UTC), secret.getExpiryDate());
     }
 
     /**
-     * Mark a secret as notified at a specific threshold.
+     * Mark a secret as notified at a policy level; less urgent levels are settled too,
+     * so a secret added late does not get the earlier notices afterwards.
      * Call this ONLY after email send succeeds.
-     * 
-     * @param secret    The secret that was notified
-     * @param threshold The threshold level that was notified (3, 7, or 30)
      */
-    public void markAsNotified(Secret secret, int threshold) {
+    public void markAsNotified(DueNotification notification) {
+        Secret secret = notification.secret();
+        int notified = secret.getNotifiedLevels() != null ? secret.getNotifiedLevels() : 0;
+        secret.setNotifiedLevels(notified | ThresholdPolicyService.firedMask(notification.level()));
         secret.setLastNotifiedOn(LocalDate.now(ZoneOffset.UTC));
-        secret.setLastNotifiedThreshold(threshold);
+        secret.setLastNotifiedThreshold(notification.threshold());
         secretRepository.save(secret);
-        log.info("Marked secret '{}' as notified at {}-day threshold", secret.getName(), threshold);
+        log.info("Marked secret '{}' as notified at {}-day threshold", secret.getName(), notification.threshold());
     }
-
-    /**
-     * Get urgency label for logging/display.
-     */
-    public String getUrgencyLabel(int threshold) {
-        return switch (threshold) {
-            case 3 -> "URGENT";
-            case 7 -> "WARNING";
-            case 30 -> "NOTICE";
-            default -> "UNKNOWN";
-        };
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,315 @@
+package com.expiryguard.service;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of connected, authenticated SMTP transports for the configured mail provider.
+ *
+ * JavaMailSender opens a new connection (STARTTLS + AUTH) for every send() call.
+ * This pool keeps up to pool.size connections open and reuses each one for up to
+ * max-messages-per-connection messages. Idle or broken connections are closed and
+ * replaced transparently. Sends are paced to rate-limit-per-minute (0 = unlimited).
+ * Connections idle longer than max-idle-seconds are also closed every
+ * reap-interval-seconds, so a burst does not leave them open until the server drops them.
+ *
+ * Point spring.mail.host/port at a local SMTP stand-in (e.g. Mailpit) to exercise it.
+ */
+@Component
+@Slf4j
+public class SmtpTransportPool implements DisposableBean {
+    private final JavaMailSenderImpl mailSender;
+    private final int poolSize;
+    private final int maxMessagesPerConnection;
+    private final long maxIdleNanos;
+    private final long sendIntervalNanos;
+    private final long borrowTimeoutMillis;
+
+    private final Semaphore slots;
+    private final BlockingQueue<PooledTransport> idle;
+    private final ExecutorService sendExecutor;
+
+    private long nextSendAt = System.nanoTime();
+
+    public SmtpTransportPool(JavaMailSender mailSender,
+            @Value("${expiryguard.mail.pool.size:4}") int poolSize,
+            @Value("${expiryguard.mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+            @Value("${expiryguard.mail.pool.max-idle-seconds:60}") long maxIdleSeconds,
+            @Value("${expiryguard.mail.pool.borrow-timeout-seconds:30}") long borrowTimeoutSeconds,
+            @Value("${expiryguard.mail.rate-limit-per-minute:0}") int rateLimitPerMinute) {
+        if (!(mailSender instanceof JavaMailSenderImpl impl)) {
+            throw new IllegalStateException("SMTP pooling requires JavaMailSenderImpl, got: "
+                    + mailSender.getClass().getName());
+        }
+        this.mailSender = impl;
+        this.poolSize = Math.max(1, poolSize);
+        this.maxMessagesPerConnection = Math.max(1, maxMessagesPerConnection);
+        this.maxIdleNanos = TimeUnit.SECONDS.toNanos(maxIdleSeconds);
+        this.borrowTimeoutMillis = TimeUnit.SECONDS.toMillis(borrowTimeoutSeconds);
+        this.sendIntervalNanos = rateLimitPerMinute > 0 ? TimeUnit.MINUTES.toNanos(1) / rateLimitPerMinute : 0;
+        this.slots = new Semaphore(this.poolSize, true);
+        this.idle = new ArrayBlockingQueue<>(this.poolSize);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sendExecutor = Executors.newFixedThreadPool(this.poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "smtp-send-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Build a MIME message for the pooled session from a simple message.
+     */
+    public MimeMessage createMimeMessage(SimpleMailMessage simpleMessage) {
+        MimeMailMessage mimeMailMessage = new MimeMailMessage(mailSender.createMimeMessage());
+        simpleMessage.copyTo(mimeMailMessage);
+        return mimeMailMessage.getMimeMessage();
+    }
+
+    /**
+     * Send one message over a pooled connection.
+     * A connection-level failure discards the connection and retries once on a fresh one.
+     */
+    public void send(MimeMessage message) {
+        awaitRateLimit();
+        try {
+            prepare(message);
+        } catch (MessagingException e) {
+            throw new MailSendException("Failed to prepare message", e);
+        }
+
+        PooledTransport transport = borrow();
+        try {
+            try {
+                transport.send(message);
+            } catch (SendFailedException e) {
+                // Rejected recipients: the connection itself is still usable
+                throw new MailSendException("Message rejected by server", e);
+            } catch (MessagingException e) {
+                log.warn("SMTP connection failed ({}), retrying on a fresh connection", e.getMessage());
+                transport.close();
+                transport = connect();
+                transport.send(message);
+            }
+        } catch (MessagingException e) {
+            transport.close();
+            throw new MailSendException("Failed to send message", e);
+        } finally {
+            release(transport);
+        }
+    }
+
+    /**
+     * Send messages in parallel across the pool's connections.
+     *
+     * @return one result per message, in the same order as messages
+     */
+    public List<DeliveryResult> sendAll(List<MimeMessage> messages) {
+        List<CompletableFuture<DeliveryResult>> results = new ArrayList<>(messages.size());
+        for (MimeMessage message : messages) {
+            results.add(CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    send(message);
+                    return DeliveryResult.since(true, start);
+                } catch (Exception e) {
+                    log.error("Failed to send pooled email: {}", e.getMessage());
+                    return DeliveryResult.since(false, start);
+                }
+            }, sendExecutor));
+        }
+        return results.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * Close pooled connections that have been idle longer than max-idle-seconds.
+     *
+     * @return number of connections closed
+     */
+    @Scheduled(fixedDelayString = "${expiryguard.mail.pool.reap-interval-seconds:30}", timeUnit = TimeUnit.SECONDS)
+    public int closeIdleConnections() {
+        int closed = 0;
+        for (int remaining = idle.size(); remaining > 0; remaining--) {
+            PooledTransport transport = idle.poll();
+            if (transport == null) {
+                break;
+            }
+            if (transport.isReusable() && idle.offer(transport)) {
+                continue;
+            }
+            transport.close();
+            closed++;
+        }
+        if (closed > 0) {
+            log.debug("Closed {} idle SMTP connections", closed);
+        }
+        return closed;
+    }
+
+    @Override
+    public void destroy() {
+        sendExecutor.shutdown();
+        PooledTransport transport;
+        while ((transport = idle.poll()) != null) {
+            transport.close();
+        }
+    }
+
+    private PooledTransport borrow() {
+        try {
+            if (!slots.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new MailSendException("Timed out waiting for a pooled SMTP connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted waiting for a pooled SMTP connection", e);
+        }
+
+        try {
+            PooledTransport transport;
+            while ((transport = idle.poll()) != null) {
+                if (transport.isReusable()) {
+                    return transport;
+                }
+                transport.close();
+            }
+            return connect();
+        } catch (MessagingException e) {
+            slots.release();
+            throw new MailSendException("Failed to connect to SMTP server", e);
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    private void release(PooledTransport transport) {
+        if (transport.isReusable()) {
+            transport.lastUsed = System.nanoTime();
+            if (!idle.offer(transport)) {
+                transport.close();
+            }
+        } else {
+            transport.close();
+        }
+        slots.release();
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Session session = mailSender.getSession();
+        String protocol = mailSender.getProtocol();
+        if (protocol == null) {
+            protocol = session.getProperty("mail.transport.protocol");
+        }
+        Transport transport = session.getTransport(protocol != null ? protocol : "smtp");
+        transport.connect(mailSender.getHost(), mailSender.getPort(),
+                mailSender.getUsername(), mailSender.getPassword());
+        log.debug("Opened pooled SMTP connection to {}", mailSender.getHost());
+        return new PooledTransport(transport);
+    }
+
+    /**
+     * Same header handling as JavaMailSenderImpl: keep an explicit Message-ID across saveChanges().
+     */
+    private void prepare(MimeMessage message) throws MessagingException {
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        String messageId = message.getMessageID();
+        message.saveChanges();
+        if (messageId != null) {
+            message.setHeader("Message-ID", messageId);
+        }
+    }
+
+    /**
+     * Space sends evenly so the provider sees at most rate-limit-per-minute messages.
+     */
+    private void awaitRateLimit() {
+        if (sendIntervalNanos == 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextSendAt);
+            nextSendAt = slot + sendIntervalNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MailSendException("Interrupted while rate limiting", e);
+            }
+        }
+    }
+
+    private class PooledTransport {
+        private final Transport transport;
+        private int messagesSent;
+        private long lastUsed = System.nanoTime();
+        private boolean broken;
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        private void send(MimeMessage message) throws MessagingException {
+            Address[] addresses = message.getAllRecipients();
+            try {
+                transport.sendMessage(message, addresses != null ? addresses : new Address[0]);
+                messagesSent++;
+            } catch (SendFailedException e) {
+                throw e;
+            } catch (MessagingException e) {
+                broken = true;
+                throw e;
+            }
+        }
+
+        private boolean isReusable() {
+            // No NOOP round trip here: a dropped connection surfaces on send and is retried
+            return !broken
+                    && messagesSent < maxMessagesPerConnection
+                    && System.nanoTime() - lastUsed < maxIdleNanos;
+        }
+
+        private void close() {
+            broken = true;
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Error closing SMTP connection: {}", e.getMessage());
+            }
+        }
+    }
+}
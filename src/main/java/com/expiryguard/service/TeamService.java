@@ -0,0 +1,98 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.Team;
+import com.expiryguard.entity.User;
+import com.expiryguard.repository.TeamRepository;
+import com.expiryguard.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TeamService {
+    private final TeamRepository teamRepository;
+    private final UserRepository userRepository;
+    private final SecretSearchIndex searchIndex;
+
+    /**
+     * Teams the user belongs to, with members loaded.
+     */
+    @Transactional(readOnly = true)
+    public List<Team> getUserTeams(User user) {
+        return teamRepository.findTeamsWithMembersByMember(user);
+    }
+
+    public boolean isMember(Long teamId, User user) {
+        return teamRepository.existsByIdAndMembers_Id(teamId, user.getId());
+    }
+
+    /**
+     * Create a team with the creator as its first member.
+     *
+     * @throws IllegalArgumentException if the name is blank
+     */
+    @Transactional
+    public Team createTeam(User creator, String name) {
+        String trimmed = name == null ? "" : name.trim();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Team name is required");
+        }
+        Team team = new Team();
+        team.setName(trimmed);
+        team.getMembers().add(creator);
+        Team saved = teamRepository.save(team);
+        searchIndex.invalidate(creator);
+        log.info("Team '{}' created by {}", trimmed, creator.getEmail());
+        return saved;
+    }
+
+    /**
+     * Add a registered user to a team. Only existing members may add others.
+     *
+     * @throws IllegalArgumentException if the requester is not a member or the email is not registered
+     */
+    @Transactional
+    public void addMember(Long teamId, User requester, String email) {
+        if (!isMember(teamId, requester)) {
+            throw new IllegalArgumentException("You are not a member of this team");
+        }
+        User member = userRepository.findByEmail(email)
+                .orElseThrow(() -> new IllegalArgumentException("No registered user with email " + email));
+        Team team = teamRepository.findById(teamId)
+                .orElseThrow(() -> new IllegalArgumentException("Team not found"));
+        team.getMembers().add(member);
+        searchIndex.invalidate(member);
+        log.info("{} added to team '{}' by {}", email, team.getName(), requester.getEmail());
+    }
+
+    /**
+     * Remove a member from a team (members may also remove themselves).
+     * The last member cannot be removed, so team-owned secrets always have someone to notify.
+     *
+     * @throws IllegalArgumentException if the requester or the member is not in the team,
+     *                                  or the member is the last one
+     */
+    @Transactional
+    public void removeMember(Long teamId, User requester, Long memberId) {
+        if (!isMember(teamId, requester)) {
+            throw new IllegalArgumentException("You are not a member of this team");
+        }
+        Team team = teamRepository.findById(teamId)
+                .orElseThrow(() -> new IllegalArgumentException("Team not found"));
+        User member = team.getMembers().stream()
+                .filter(user -> user.getId().equals(memberId))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("User is not a member of this team"));
+        if (team.getMembers().size() == 1) {
+            throw new IllegalArgumentException("A team needs at least one member");
+        }
+        team.getMembers().remove(member);
+        searchIndex.invalidate(member);
+        log.info("{} removed from team '{}' by {}", member.getEmail(), team.getName(), requester.getEmail());
+    }
+}
@@ -0,0 +1,347 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.Secret;
+import com.expiryguard.entity.ThresholdPolicy;
+import com.expiryguard.entity.User;
+import com.expiryguard.repository.SecretRepository;
+import com.expiryguard.repository.TeamRepository;
+import com.expiryguard.repository.ThresholdPolicyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Named threshold policies. Secrets without a policy follow the built-in default "Standard"
+ * policy, which is created on first start with the original 30/7/3-day schedule.
+ *
+ * Other policies are owned by a user or a team. Users see and can use the default policy,
+ * their own policies and their teams' policies; owners and team members can edit and
+ * delete them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ThresholdPolicyService {
+    public static final String DEFAULT_POLICY_NAME = "Standard";
+    static final int[] DEFAULT_THRESHOLDS = { 30, 7, 3 };
+    private static final int MAX_THRESHOLD_DAYS = 3650;
+
+    private final ThresholdPolicyRepository policyRepository;
+    private final TeamRepository teamRepository;
+    private final SecretRepository secretRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile ThresholdPolicy defaultPolicy;
+
+    /**
+     * Create the default policy if needed and convert secrets notified before policies
+     * existed (lastNotifiedThreshold only) to the levels bitmask of the default policy.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        getDefaultPolicy();
+
+        StringBuilder levels = new StringBuilder("CASE last_notified_threshold");
+        for (int level = 1; level <= DEFAULT_THRESHOLDS.length; level++) {
+            levels.append(" WHEN ").append(DEFAULT_THRESHOLDS[level - 1]).append(" THEN ").append(firedMask(level));
+        }
+        levels.append(" ELSE 0 END");
+        int converted = jdbcTemplate.update("UPDATE secrets SET notified_levels = " + levels
+                + " WHERE notified_levels IS NULL");
+        if (converted > 0) {
+            log.info("Converted notification state of {} secrets to threshold policy levels", converted);
+        }
+    }
+
+    public ThresholdPolicy getDefaultPolicy() {
+        ThresholdPolicy policy = defaultPolicy;
+        if (policy == null) {
+            policy = policyRepository.findFirstByNameAndUserIsNullAndTeamIsNullOrderByIdAsc(DEFAULT_POLICY_NAME)
+                    .orElseGet(() -> {
+                        policyRepository.save(newPolicy(DEFAULT_POLICY_NAME, DEFAULT_THRESHOLDS));
+                        // Instances that created it concurrently all settle on the oldest one
+                        return policyRepository.findFirstByNameAndUserIsNullAndTeamIsNullOrderByIdAsc(
+                                DEFAULT_POLICY_NAME).orElseThrow();
+                    });
+            defaultPolicy = policy;
+        }
+        return policy;
+    }
+
+    /**
+     * The default policy followed by the user's own and their teams' policies, by name.
+     */
+    @Transactional(readOnly = true)
+    public List<ThresholdPolicy> getPolicies(User user) {
+        List<ThresholdPolicy> policies = new ArrayList<>();
+        policies.add(getDefaultPolicy());
+        policies.addAll(policyRepository.findVisibleToUser(user));
+        return policies;
+    }
+
+    /**
+     * @return the policy if it is built in or the user owns it (personally or through a team)
+     */
+    @Transactional(readOnly = true)
+    public Optional<ThresholdPolicy> getPolicy(User user, Long policyId) {
+        return policyRepository.findById(policyId)
+                .filter(policy -> policy.isBuiltIn() || canManage(policy, user));
+    }
+
+    /**
+     * Thresholds by policy id of the policies the user's secrets use, including a teammate's
+     * policy on a team secret. Secrets without a policy follow the default policy.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, int[]> getThresholdsByPolicy(User user) {
+        Map<Long, int[]> thresholds = new HashMap<>();
+        for (ThresholdPolicy policy : policyRepository.findUsedBySecretsVisibleTo(user)) {
+            thresholds.put(policy.getId(), policy.getThresholds());
+        }
+        return thresholds;
+    }
+
+    /**
+     * Furthest threshold of any policy, i.e. how far ahead the scheduler has to look.
+     */
+    public int getMaxThreshold() {
+        Integer max = policyRepository.findMaxThreshold();
+        return max != null ? max : DEFAULT_THRESHOLDS[0];
+    }
+
+    /**
+     * Create a policy owned by the user, or by one of their teams when teamId is set.
+     *
+     * @param thresholds days before expiry, e.g. "90, 60, 14, 1" (any order)
+     * @throws IllegalArgumentException for a duplicate name, invalid thresholds or a team the user is not in
+     */
+    @Transactional
+    public ThresholdPolicy createPolicy(User user, String name, String thresholds, Long teamId) {
+        ThresholdPolicy policy = newPolicy(validName(name), parseThresholds(thresholds));
+        if (teamId != null) {
+            if (!teamRepository.existsByIdAndMembers_Id(teamId, user.getId())) {
+                throw new IllegalArgumentException("You are not a member of this team");
+            }
+            policy.setTeam(teamRepository.getReferenceById(teamId));
+        } else {
+            policy.setUser(user);
+        }
+        requireUniqueName(policy, policy.getName());
+        ThresholdPolicy saved = policyRepository.save(policy);
+        log.info("Threshold policy '{}' created by {}: {}", saved.getName(), user.getEmail(),
+                describe(saved.getThresholds()));
+        return saved;
+    }
+
+    /**
+     * Rename a policy and/or change its thresholds (null fields are left unchanged).
+     * Secrets on the policy keep the levels already sent (see remapNotifiedLevels).
+     *
+     * @return the updated policy, or empty if not found, built in or not the user's
+     * @throws IllegalArgumentException for a duplicate name or invalid thresholds
+     */
+    @Transactional
+    public Optional<ThresholdPolicy> updatePolicy(User user, Long policyId, String name, String thresholds) {
+        String newName = name != null ? validName(name) : null;
+        int[] newThresholds = thresholds != null ? parseThresholds(thresholds) : null;
+        return policyRepository.findById(policyId)
+                .filter(policy -> canManage(policy, user))
+                .map(policy -> {
+                    if (newName != null && !newName.equalsIgnoreCase(policy.getName())) {
+                        requireUniqueName(policy, newName);
+                    }
+                    if (newName != null) {
+                        policy.setName(newName);
+                    }
+                    if (newThresholds != null && !Arrays.equals(newThresholds, policy.getThresholds())) {
+                        int remapped = remapSecrets(policy, newThresholds);
+                        policy.setThresholds(newThresholds);
+                        log.info("Threshold policy '{}' changed to {}, remapped levels of {} secrets",
+                                policy.getName(), describe(newThresholds), remapped);
+                    }
+                    return policyRepository.save(policy);
+                });
+    }
+
+    /**
+     * Delete a policy; its secrets move to the default policy, keeping the levels already sent.
+     *
+     * @return true if the policy existed and the user could delete it
+     */
+    @Transactional
+    public boolean deletePolicy(User user, Long policyId) {
+        return policyRepository.findById(policyId)
+                .filter(policy -> canManage(policy, user))
+                .map(policy -> {
+                    remapSecrets(policy, getDefaultPolicy().getThresholds());
+                    int moved = secretRepository.moveToDefaultPolicy(policy);
+                    policyRepository.delete(policy);
+                    log.info("Threshold policy '{}' deleted by {}, {} secrets moved to the default policy",
+                            policy.getName(), user.getEmail(), moved);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    private int remapSecrets(ThresholdPolicy policy, int[] newThresholds) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        List<Secret> secrets = secretRepository.findByPolicyAndActiveTrue(policy);
+        for (Secret secret : secrets) {
+            int notified = secret.getNotifiedLevels() != null ? secret.getNotifiedLevels() : 0;
+            secret.setNotifiedLevels(remapNotifiedLevels(policy.getThresholds(), newThresholds, notified,
+                    ChronoUnit.DAYS.between(today, secret.getExpiryDate())));
+        }
+        return secrets.size();
+    }
+
+    /**
+     * Personal policies are managed by their owner, team policies by any team member;
+     * built-in policies by nobody.
+     */
+    private boolean canManage(ThresholdPolicy policy, User user) {
+        if (policy.getUser() != null) {
+            return policy.getUser().getId().equals(user.getId());
+        }
+        return policy.getTeam() != null
+                && teamRepository.existsByIdAndMembers_Id(policy.getTeam().getId(), user.getId());
+    }
+
+    private static String validName(String name) {
+        String trimmed = name == null ? "" : name.trim();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Policy name is required");
+        }
+        if (trimmed.toLowerCase(Locale.ROOT).equals(DEFAULT_POLICY_NAME.toLowerCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("'" + DEFAULT_POLICY_NAME + "' is the name of the default policy");
+        }
+        return trimmed;
+    }
+
+    private void requireUniqueName(ThresholdPolicy policy, String name) {
+        boolean taken = policy.getTeam() != null
+                ? policyRepository.existsByNameIgnoreCaseAndTeam_Id(name, policy.getTeam().getId())
+                : policyRepository.existsByNameIgnoreCaseAndUser(name, policy.getUser());
+        if (taken) {
+            throw new IllegalArgumentException("A policy named '" + name + "' already exists");
+        }
+    }
+
+    /**
+     * Parse a comma-separated list of days into distinct thresholds, least urgent first.
+     *
+     * @throws IllegalArgumentException if empty, out of range or too many levels
+     */
+    public static int[] parseThresholds(String spec) {
+        int[] thresholds;
+        try {
+            thresholds = Arrays.stream(spec == null ? new String[0] : spec.split(","))
+                    .map(String::trim)
+                    .filter(value -> !value.isEmpty())
+                    .mapToInt(Integer::parseInt)
+                    .map(days -> -days)
+                    .sorted()
+                    .distinct()
+                    .map(days -> -days)
+                    .toArray();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Thresholds must be whole numbers of days, e.g. 90, 60, 14, 1");
+        }
+        if (thresholds.length == 0 || thresholds.length > ThresholdPolicy.MAX_LEVELS) {
+            throw new IllegalArgumentException("A policy needs between 1 and " + ThresholdPolicy.MAX_LEVELS
+                    + " thresholds");
+        }
+        if (thresholds[thresholds.length - 1] < 0 || thresholds[0] > MAX_THRESHOLD_DAYS) {
+            throw new IllegalArgumentException("Thresholds must be between 0 and " + MAX_THRESHOLD_DAYS + " days");
+        }
+        return thresholds;
+    }
+
+    /**
+     * Most urgent level reached with this many days remaining.
+     *
+     * @return 1-based level, or 0 if no threshold is reached yet
+     */
+    public static int levelFor(int[] thresholds, long daysRemaining) {
+        for (int level = thresholds.length; level >= 1; level--) {
+            if (daysRemaining <= thresholds[level - 1]) {
+                return level;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Carry a secret's fired levels over to new thresholds, so a policy change never re-sends a notice.
+     *
+     * Thresholds present in both keep their bit. New thresholds already reached count as fired
+     * if the secret was up to date, i.e. the most urgent old level reached had been sent; a secret
+     * that was still owed a notice (or had reached no level yet) gets one at its new level instead.
+     */
+    public static int remapNotifiedLevels(int[] oldThresholds, int[] newThresholds, int notifiedLevels,
+            long daysRemaining) {
+        int oldLevel = levelFor(oldThresholds, daysRemaining);
+        boolean upToDate = oldLevel > 0 && (notifiedLevels & (1 << (oldLevel - 1))) != 0;
+        int remapped = 0;
+        for (int level = 1; level <= newThresholds.length; level++) {
+            int threshold = newThresholds[level - 1];
+            int oldIndex = indexOf(oldThresholds, threshold);
+            boolean fired = oldIndex >= 0
+                    ? (notifiedLevels & (1 << oldIndex)) != 0
+                    : upToDate && daysRemaining <= threshold;
+            if (fired) {
+                remapped |= 1 << (level - 1);
+            }
+        }
+        return remapped;
+    }
+
+    private static int indexOf(int[] thresholds, int threshold) {
+        for (int i = 0; i < thresholds.length; i++) {
+            if (thresholds[i] == threshold) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Bits for this level and all less urgent ones, which are all settled once it fires.
+     */
+    public static int firedMask(int level) {
+        return (1 << level) - 1;
+    }
+
+    /**
+     * Thresholds in the comma-separated form parseThresholds accepts, e.g. "90, 60, 14, 1".
+     */
+    public static String formatThresholds(int[] thresholds) {
+        return String.join(", ", Arrays.stream(thresholds).mapToObj(String::valueOf).toList());
+    }
+
+    public static String describe(int[] thresholds) {
+        return String.join("/", Arrays.stream(thresholds).mapToObj(String::valueOf).toList()) + " days";
+    }
+
+    private static ThresholdPolicy newPolicy(String name, int[] thresholds) {
+        ThresholdPolicy policy = new ThresholdPolicy();
+        policy.setName(name);
+        policy.setThresholds(thresholds.clone());
+        return policy;
+    }
+}
@@ -1,6 +1,8 @@
 package com.expiryguard.service;
 
+import com.expiryguard.entity.NotificationEvent;
 import com.expiryguard.entity.Secret;
+import com.expiryguard.entity.ThresholdPolicy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
@@ -10,6 +12,7 @@ import org.springframework.web.client.RestTemplate;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,33 +48,67 @@ public class WebhookService {
                 !genericWebhookUrl.isBlank());
     }
 
+    /**
+     * Number of webhook endpoints that receive each expiry notification.
+     */
+    public int getNotificationEndpointCount() {
+        if (!webhookEnabled) {
+            return 0;
+        }
+        return (slackWebhookUrl.isBlank() ? 0 : 1)
+                + (discordWebhookUrl.isBlank() ? 0 : 1)
+                + (genericWebhookUrl.isBlank() ? 0 : 1);
+    }
+
+    /**
+     * Number of webhook endpoints that receive the daily summary (Slack and Discord only).
+     */
+    public int getSummaryEndpointCount() {
+        if (!isWebhookConfigured()) {
+            return 0;
+        }
+        return (slackWebhookUrl.isBlank() ? 0 : 1) + (discordWebhookUrl.isBlank() ? 0 : 1);
+    }
+
     /**
      * Send notification to all configured webhooks.
+     *
+     * @param threshold days before expiry of the policy level being notified
+     * @return delivery result per webhook channel that was attempted
      */
-    public void sendExpiryNotification(Secret secret, int threshold) {
+    public Map<NotificationEvent.Channel, DeliveryResult> sendExpiryNotification(Secret secret, int threshold,
+            ThresholdPolicy.Urgency level) {
+        Map<NotificationEvent.Channel, DeliveryResult> results = new EnumMap<>(NotificationEvent.Channel.class);
         if (!webhookEnabled) {
             log.debug("Webhooks disabled, skipping notification");
-            return;
+            return results;
         }
 
         long daysRemaining = ChronoUnit.DAYS.between(LocalDate.now(ZoneOffset.UTC), secret.getExpiryDate());
-        String urgency = getUrgencyLabel(threshold);
-        String emoji = getUrgencyEmoji(threshold);
+        String urgency = level.name();
+        String emoji = getUrgencyEmoji(level);
 
         // Send to Slack
         if (!slackWebhookUrl.isBlank()) {
-            sendSlackNotification(secret, daysRemaining, urgency, emoji);
+            long start = System.nanoTime();
+            boolean sent = sendSlackNotification(secret, daysRemaining, urgency, emoji);
+            results.put(NotificationEvent.Channel.SLACK, DeliveryResult.since(sent, start));
         }
 
         // Send to Discord
         if (!discordWebhookUrl.isBlank()) {
-            sendDiscordNotification(secret, daysRemaining, urgency, emoji);
+            long start = System.nanoTime();
+            boolean sent = sendDiscordNotification(secret, daysRemaining, urgency, emoji);
+            results.put(NotificationEvent.Channel.DISCORD, DeliveryResult.since(sent, start));
         }
 
         // Send to generic webhook
         if (!genericWebhookUrl.isBlank()) {
-            sendGenericNotification(secret, daysRemaining, threshold, urgency);
+            long start = System.nanoTime();
+            boolean sent = sendGenericNotification(secret, daysRemaining, threshold, urgency);
+            results.put(NotificationEvent.Channel.WEBHOOK, DeliveryResult.since(sent, start));
         }
+        return results;
     }
 
     /**
@@ -101,7 +138,7 @@ public class WebhookService {
         }
     }
 
-    private void sendSlackNotification(Secret secret, long daysRemaining, String urgency, String emoji) {
+    private boolean sendSlackNotification(Secret secret, long daysRemaining, String urgency, String emoji) {
         String message = String.format(
                 "%s *[%s]* Secret *%s* expires in *%d days* (%s)\n" +
                         "Owner: %s",
@@ -112,10 +149,10 @@ public class WebhookService {
                 secret.getExpiryDate().toString(),
                 secret.getUser().getEmail());
 
-        sendSlackMessage(message);
+        return sendSlackMessage(message);
     }
 
-    private void sendSlackMessage(String message) {
+    private boolean sendSlackMessage(String message) {
         try {
             Map<String, Object> payload = new HashMap<>();
             payload.put("text", message);
@@ -129,15 +166,16 @@ public class WebhookService {
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 log.debug("Slack notification sent successfully");
-            } else {
-                log.warn("Slack notification failed with status: {}", response.getStatusCode());
+                return true;
             }
+            log.warn("Slack notification failed with status: {}", response.getStatusCode());
         } catch (Exception e) {
             log.error("Failed to send Slack notification: {}", e.getMessage());
         }
+        return false;
     }
 
-    private void sendDiscordNotification(Secret secret, long daysRemaining, String urgency, String emoji) {
+    private boolean sendDiscordNotification(Secret secret, long daysRemaining, String urgency, String emoji) {
         String message = String.format(
                 "%s **[%s]** Secret **%s** expires in **%d days** (%s)\n" +
                         "Owner: %s",
@@ -148,10 +186,10 @@ public class WebhookService {
                 secret.getExpiryDate().toString(),
                 secret.getUser().getEmail());
 
-        sendDiscordMessage(message);
+        return sendDiscordMessage(message);
     }
 
-    private void sendDiscordMessage(String message) {
+    private boolean sendDiscordMessage(String message) {
         try {
             Map<String, Object> payload = new HashMap<>();
             payload.put("content", message);
@@ -164,15 +202,16 @@ public class WebhookService {
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 log.debug("Discord notification sent successfully");
-            } else {
-                log.warn("Discord notification failed with status: {}", response.getStatusCode());
+                return true;
             }
+            log.warn("Discord notification failed with status: {}", response.getStatusCode());
         } catch (Exception e) {
             log.error("Failed to send Discord notification: {}", e.getMessage());
         }
+        return false;
     }
 
-    private void sendGenericNotification(Secret secret, long daysRemaining, int threshold, String urgency) {
+    private boolean sendGenericNotification(Secret secret, long daysRemaining, int threshold, String urgency) {
         try {
             Map<String, Object> payload = new HashMap<>();
             payload.put("event", "secret_expiry_warning");
@@ -192,29 +231,20 @@ public class WebhookService {
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 log.debug("Generic webhook notification sent successfully");
-            } else {
-                log.warn("Generic webhook failed with status: {}", response.getStatusCode());
+                return true;
             }
+            log.warn("Generic webhook failed with status: {}", response.getStatusCode());
         } catch (Exception e) {
             log.error("Failed to send generic webhook: {}", e.getMessage());
         }
+        return false;
     }
 
-    private String getUrgencyLabel(int threshold) {
-        return switch (threshold) {
-            case 3 -> "URGENT";
-            case 7 -> "WARNING";
-            case 30 -> "NOTICE";
-            default -> "INFO";
-        };
-    }
-
-    private String getUrgencyEmoji(int threshold) {
-        return switch (threshold) {
-            case 3 -> "🚨";
-            case 7 -> "⚠️";
-            case 30 -> "📅";
-            default -> "ℹ️";
+    private String getUrgencyEmoji(ThresholdPolicy.Urgency level) {
+        return switch (level) {
+            case URGENT -> "🚨";
+            case WARNING -> "⚠️";
+            case NOTICE -> "📅";
         };
     }
 }
@@ -0,0 +1,25 @@
+-- Initial schema, matching what ddl-auto: update produced for User and Secret.
+CREATE TABLE IF NOT EXISTS users (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email      VARCHAR(255) NOT NULL UNIQUE,
+    password   VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS secrets (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id                 BIGINT       NOT NULL REFERENCES users (id),
+    name                    VARCHAR(255) NOT NULL,
+    expiry_date             DATE         NOT NULL,
+    notes                   VARCHAR(255),
+    active                  BOOLEAN      NOT NULL,
+    last_notified_on        DATE,
+    last_notified_threshold INTEGER,
+    created_at              TIMESTAMP(6) NOT NULL
+);
+
+-- Dashboard listing (findByUserAndActiveOrderByExpiryDateAsc)
+CREATE INDEX IF NOT EXISTS idx_secrets_user_active_expiry ON secrets (user_id, active, expiry_date);
+
+-- Scheduler window scan (findSecretsExpiringBefore)
+CREATE INDEX IF NOT EXISTS idx_secrets_active_expiry ON secrets (active, expiry_date);
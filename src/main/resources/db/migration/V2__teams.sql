@@ -0,0 +1,18 @@
+-- Teams that own secrets, and their members
+CREATE TABLE IF NOT EXISTS teams (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name       VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS team_members (
+    team_id BIGINT NOT NULL REFERENCES teams (id),
+    user_id BIGINT NOT NULL REFERENCES users (id),
+    PRIMARY KEY (team_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_team_members_user ON team_members (user_id);
+
+ALTER TABLE secrets ADD COLUMN IF NOT EXISTS team_id BIGINT REFERENCES teams (id);
+
+CREATE INDEX IF NOT EXISTS idx_secrets_team ON secrets (team_id);
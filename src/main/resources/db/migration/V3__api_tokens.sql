@@ -0,0 +1,15 @@
+-- Hashed API tokens for automation clients
+CREATE TABLE IF NOT EXISTS api_tokens (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id      BIGINT       NOT NULL REFERENCES users (id),
+    name         VARCHAR(255) NOT NULL,
+    type         VARCHAR(255) NOT NULL,
+    token_hash   VARCHAR(64)  NOT NULL UNIQUE,
+    token_prefix VARCHAR(255) NOT NULL,
+    expires_at   TIMESTAMP(6),
+    last_used_at TIMESTAMP(6),
+    active       BOOLEAN      NOT NULL,
+    created_at   TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_api_tokens_user ON api_tokens (user_id);
@@ -0,0 +1,42 @@
+-- Append-only delivery history and its time-bucketed rollups
+CREATE TABLE IF NOT EXISTS notification_events (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    secret_id   BIGINT       NOT NULL,
+    recipient   VARCHAR(255) NOT NULL,
+    channel     VARCHAR(255) NOT NULL,
+    threshold   INTEGER      NOT NULL,
+    outcome     VARCHAR(255) NOT NULL,
+    latency_ms  BIGINT       NOT NULL,
+    occurred_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_notification_events_occurred ON notification_events (occurred_at);
+CREATE INDEX IF NOT EXISTS idx_notification_events_secret ON notification_events (secret_id, occurred_at);
+
+CREATE TABLE IF NOT EXISTS notification_rollups (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    granularity      VARCHAR(255) NOT NULL,
+    bucket_start     TIMESTAMP(6) NOT NULL,
+    team_owned       BOOLEAN      NOT NULL,
+    owner_id         BIGINT       NOT NULL,
+    channel          VARCHAR(255) NOT NULL,
+    outcome          VARCHAR(255) NOT NULL,
+    message_count    BIGINT       NOT NULL,
+    total_latency_ms BIGINT       NOT NULL,
+    max_latency_ms   BIGINT       NOT NULL,
+    CONSTRAINT uk_notification_rollups_bucket
+        UNIQUE (granularity, team_owned, owner_id, bucket_start, channel, outcome)
+);
+
+CREATE INDEX IF NOT EXISTS idx_notification_rollups_start ON notification_rollups (granularity, bucket_start);
+
+-- Serializes background jobs across instances (see NotificationHistoryCompactor)
+CREATE TABLE IF NOT EXISTS job_locks (
+    name      VARCHAR(64) PRIMARY KEY,
+    locked_at TIMESTAMP(6),
+    locked_by VARCHAR(255)
+);
+
+-- Guarded: a ddl-auto database being baselined may already have the row from the compactor
+INSERT INTO job_locks (name)
+SELECT 'notification-history' WHERE NOT EXISTS (SELECT 1 FROM job_locks WHERE name = 'notification-history');
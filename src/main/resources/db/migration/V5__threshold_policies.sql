@@ -0,0 +1,18 @@
+-- Named notification threshold policies; secrets without one follow the default policy.
+-- Policies belong to a user or a team (names unique per owner); the built-in default has neither.
+CREATE TABLE IF NOT EXISTS threshold_policies (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name       VARCHAR(255)  NOT NULL,
+    user_id    BIGINT        REFERENCES users (id),
+    team_id    BIGINT        REFERENCES teams (id),
+    thresholds INTEGER ARRAY NOT NULL,
+    created_at TIMESTAMP(6)  NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_threshold_policies_user ON threshold_policies (user_id);
+CREATE INDEX IF NOT EXISTS idx_threshold_policies_team ON threshold_policies (team_id);
+
+ALTER TABLE secrets ADD COLUMN IF NOT EXISTS policy_id BIGINT REFERENCES threshold_policies (id);
+
+-- Levels already fired, bit i - 1 for level i (backfilled from last_notified_threshold on startup)
+ALTER TABLE secrets ADD COLUMN IF NOT EXISTS notified_levels INTEGER;
@@ -0,0 +1,125 @@
+package com.expiryguard.config;
+
+import com.expiryguard.entity.User;
+import com.expiryguard.service.SecretSearchIndex;
+import com.expiryguard.service.SecretService;
+import com.expiryguard.service.UserService;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadReplicaConfigTest.PRIMARY_URL,
+        "expiryguard.datasource.replica.url=" + ReadReplicaConfigTest.REPLICA_URL,
+        "expiryguard.datasource.replica.username=sa",
+        "expiryguard.datasource.replica.password=",
+        "expiryguard.datasource.replica.lag-query=SELECT seconds FROM replica_lag",
+        "expiryguard.datasource.replica.lag-check-interval-ms=3600000",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles({ "h2", "replica" })
+class ReadReplicaConfigTest {
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private SecretService secretService;
+    @Autowired
+    private SecretSearchIndex searchIndex;
+
+    private final JdbcTemplate primary = direct(PRIMARY_URL);
+    private final JdbcTemplate replica = direct(REPLICA_URL);
+
+    @BeforeEach
+    void createProbes() {
+        for (JdbcTemplate database : new JdbcTemplate[] { primary, replica }) {
+            database.execute("CREATE TABLE IF NOT EXISTS routing_probe (source VARCHAR(16))");
+            database.execute("DELETE FROM routing_probe");
+        }
+        primary.update("INSERT INTO routing_probe VALUES ('primary')");
+        replica.update("INSERT INTO routing_probe VALUES ('replica')");
+        replica.execute("CREATE TABLE IF NOT EXISTS replica_lag (seconds DOUBLE PRECISION)");
+        replica.execute("DELETE FROM replica_lag");
+        replica.update("INSERT INTO replica_lag VALUES (0)");
+        replicaLagMonitor.checkLag();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertThat(probe(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void readWriteTransactionsAndPlainCallsUseThePrimary() {
+        assertThat(probe(false)).isEqualTo("primary");
+        assertThat(jdbcTemplate.queryForObject("SELECT source FROM routing_probe", String.class))
+                .isEqualTo("primary");
+    }
+
+    @Test
+    void laggingReplicaSendsReadsToThePrimary() {
+        replica.update("UPDATE replica_lag SET seconds = 60");
+        replicaLagMonitor.checkLag();
+        assertThat(probe(true)).isEqualTo("primary");
+
+        replica.update("UPDATE replica_lag SET seconds = 1");
+        replicaLagMonitor.checkLag();
+        assertThat(probe(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void unreachableReplicaSendsReadsToThePrimary() {
+        replica.execute("DROP TABLE replica_lag");
+        replicaLagMonitor.checkLag();
+
+        assertThat(replicaLagMonitor.isReplicaUsable()).isFalse();
+        assertThat(probe(true)).isEqualTo("primary");
+    }
+
+    @Test
+    void searchIndexIsBuiltFromThePrimaryInsideReadOnlySearches() {
+        User user = userService.registerUser(UUID.randomUUID() + "@example.com", "password");
+        secretService.addSecret(user, "prod cert", LocalDate.now().plusDays(10), null);
+
+        // The replica has no application tables, so a rebuild routed there would fail
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        SecretSearchIndex.SearchMatches matches = readOnly.execute(status ->
+                searchIndex.search(user, "prod", null, null, secret -> true, 0, 10));
+
+        assertThat(matches.matches()).extracting(SecretSearchIndex.IndexedSecret::name).containsExactly("prod cert");
+    }
+
+    private String probe(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                jdbcTemplate.queryForObject("SELECT source FROM routing_probe", String.class));
+    }
+
+    private static JdbcTemplate direct(String url) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        dataSource.setUser("sa");
+        return new JdbcTemplate(dataSource);
+    }
+}
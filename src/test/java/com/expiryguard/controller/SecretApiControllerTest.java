@@ -0,0 +1,119 @@
+package com.expiryguard.controller;
+
+import com.expiryguard.entity.ApiToken;
+import com.expiryguard.entity.User;
+import com.expiryguard.repository.ApiTokenRepository;
+import com.expiryguard.service.ApiTokenService;
+import com.expiryguard.service.SecretService;
+import com.expiryguard.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:api-test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+class SecretApiControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ApiTokenService apiTokenService;
+    @Autowired
+    private ApiTokenRepository apiTokenRepository;
+    @Autowired
+    private SecretService secretService;
+
+    private User user;
+
+    @BeforeEach
+    void registerUser() {
+        user = userService.registerUser(UUID.randomUUID() + "@example.com", "password");
+    }
+
+    @Test
+    void validTokenIsAccepted() throws Exception {
+        String token = apiTokenService.createToken(user, "ci", ApiToken.Type.SERVICE).rawToken();
+
+        mockMvc.perform(post("/api/secrets").header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"deploy-key\", \"expiryDate\": \"2099-01-01\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name").value("deploy-key"));
+    }
+
+    @Test
+    void missingOrUnknownTokensAreRejected() throws Exception {
+        mockMvc.perform(get("/api/forecast"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/forecast").header(HttpHeaders.AUTHORIZATION, "Bearer eg_not-a-real-token"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/forecast").header(HttpHeaders.AUTHORIZATION, "Bearer something-else"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/forecast").header(HttpHeaders.AUTHORIZATION, "Basic dXNlcjpwYXNz"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void revokedTokenIsRejectedEvenWhenCached() throws Exception {
+        ApiTokenService.CreatedToken created = apiTokenService.createToken(user, "ci", ApiToken.Type.SERVICE);
+        String header = "Bearer " + created.rawToken();
+        mockMvc.perform(get("/api/forecast").header(HttpHeaders.AUTHORIZATION, header))
+                .andExpect(status().isOk());
+
+        apiTokenService.revokeToken(created.token().getId(), user);
+
+        mockMvc.perform(get("/api/forecast").header(HttpHeaders.AUTHORIZATION, header))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void expiredTokenIsRejected() throws Exception {
+        ApiTokenService.CreatedToken created = apiTokenService.createToken(user, "laptop", ApiToken.Type.PERSONAL);
+        ApiToken token = created.token();
+        token.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        apiTokenRepository.save(token);
+
+        mockMvc.perform(get("/api/forecast").header(HttpHeaders.AUTHORIZATION, "Bearer " + created.rawToken()))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void updateRejectsBlankName() throws Exception {
+        String header = "Bearer " + apiTokenService.createToken(user, "ci", ApiToken.Type.SERVICE).rawToken();
+        mockMvc.perform(post("/api/secrets").header(HttpHeaders.AUTHORIZATION, header)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"deploy-key\", \"expiryDate\": \"2099-01-01\"}"))
+                .andExpect(status().isCreated());
+        Long id = secretService.getUserSecrets(user).get(0).getId();
+
+        mockMvc.perform(put("/api/secrets/" + id).header(HttpHeaders.AUTHORIZATION, header)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"   \"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/secrets/" + id).header(HttpHeaders.AUTHORIZATION, header)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"notes\": \"rotated\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("deploy-key"));
+    }
+}
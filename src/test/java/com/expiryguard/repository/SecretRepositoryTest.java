@@ -0,0 +1,181 @@
+package com.expiryguard.repository;
+
+import com.expiryguard.entity.Secret;
+import com.expiryguard.entity.Team;
+import com.expiryguard.entity.ThresholdPolicy;
+import com.expiryguard.entity.User;
+import com.expiryguard.service.ThresholdPolicyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:due-levels-test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SecretRepositoryTest {
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 1);
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private SecretRepository secretRepository;
+
+    private User user;
+    private ThresholdPolicy standard;
+    private ThresholdPolicy partner;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("owner@example.com");
+        user.setPassword("x");
+        entityManager.persist(user);
+        standard = policy("Standard", null, 30, 7, 3);
+        partner = policy("Partner certs", user, 90, 60, 14, 1);
+    }
+
+    @Test
+    void standardPolicyEscalatesAndSkipsLevelsAlreadySent() {
+        Secret notYet = secret(null, 40, 0);
+        Secret firstNotice = secret(null, 30, 0);
+        Secret noticeSent = secret(standard, 20, 0b001);
+        Secret addedLate = secret(null, 20, 0);
+        Secret warning = secret(null, 5, 0b001);
+        Secret urgent = secret(null, 2, 0b011);
+        Secret urgentSent = secret(null, 2, 0b111);
+        Secret expiresToday = secret(null, 0, 0b011);
+        Secret expired = secret(null, -1, 0);
+        Secret deleted = secret(null, 5, 0);
+        deleted.setActive(false);
+        entityManager.flush();
+
+        Map<Long, String> due = dueLevels(30);
+
+        assertThat(due).containsOnlyKeys(firstNotice.getId(), addedLate.getId(), warning.getId(), urgent.getId(),
+                expiresToday.getId());
+        assertThat(due.get(firstNotice.getId())).isEqualTo("level 1/3 at 30 days");
+        assertThat(due.get(addedLate.getId())).isEqualTo("level 1/3 at 30 days");
+        assertThat(due.get(warning.getId())).isEqualTo("level 2/3 at 7 days");
+        assertThat(due.get(urgent.getId())).isEqualTo("level 3/3 at 3 days");
+        assertThat(due.get(expiresToday.getId())).isEqualTo("level 3/3 at 3 days");
+        assertThat(List.of(notYet, noticeSent, urgentSent, expired, deleted))
+                .noneMatch(secret -> due.containsKey(secret.getId()));
+    }
+
+    @Test
+    void customPolicyUsesItsOwnLevels() {
+        Secret first = secret(partner, 90, 0);
+        Secret second = secret(partner, 59, 0b0001);
+        Secret third = secret(partner, 14, 0b0011);
+        Secret last = secret(partner, 1, 0b0111);
+        Secret lastSent = secret(partner, 1, 0b1111);
+        Secret beyondWindow = secret(partner, 91, 0);
+        Secret sameDaysOnStandard = secret(null, 59, 0b001);
+        entityManager.flush();
+
+        Map<Long, String> due = dueLevels(90);
+
+        assertThat(due).containsOnlyKeys(first.getId(), second.getId(), third.getId(), last.getId());
+        assertThat(due.get(first.getId())).isEqualTo("level 1/4 at 90 days");
+        assertThat(due.get(second.getId())).isEqualTo("level 2/4 at 60 days");
+        assertThat(due.get(third.getId())).isEqualTo("level 3/4 at 14 days");
+        assertThat(due.get(last.getId())).isEqualTo("level 4/4 at 1 days");
+        assertThat(List.of(lastSent, beyondWindow, sameDaysOnStandard))
+                .noneMatch(secret -> due.containsKey(secret.getId()));
+    }
+
+    @Test
+    void eachLevelFiresOnceAsExpiryApproaches() {
+        Secret partnerSecret = secret(partner, 95, 0);
+        Secret standardSecret = secret(null, 95, 0);
+        entityManager.flush();
+
+        List<String> fired = new ArrayList<>();
+        for (int day = 0; day <= 95; day++) {
+            LocalDate today = TODAY.plusDays(day);
+            for (SecretRepository.DueLevel dueLevel : secretRepository.findDueLevels(today, today.plusDays(90),
+                    standard.getId())) {
+                Secret secret = entityManager.find(Secret.class, dueLevel.getSecretId());
+                secret.setNotifiedLevels(secret.getNotifiedLevels()
+                        | ThresholdPolicyService.firedMask(dueLevel.getLevel()));
+                fired.add((secret == partnerSecret ? "partner" : "standard") + " day " + day + ": "
+                        + dueLevel.getThreshold());
+            }
+            entityManager.flush();
+        }
+
+        assertThat(fired).containsExactly(
+                "partner day 5: 90",
+                "partner day 35: 60",
+                "standard day 65: 30",
+                "partner day 81: 14",
+                "standard day 88: 7",
+                "standard day 92: 3",
+                "partner day 94: 1");
+        assertThat(standardSecret.getNotifiedLevels()).isEqualTo(0b111);
+        assertThat(partnerSecret.getNotifiedLevels()).isEqualTo(0b1111);
+    }
+
+    @Test
+    void teamRecipientsAreResolvedOnlyForTheRequestedSecrets() {
+        User member = new User();
+        member.setEmail("member@example.com");
+        member.setPassword("x");
+        entityManager.persist(member);
+        Team team = new Team();
+        team.setName("Platform");
+        team.getMembers().add(user);
+        team.getMembers().add(member);
+        entityManager.persist(team);
+        Secret due = secret(null, 7, 0);
+        due.setTeam(team);
+        Secret alsoTeamOwned = secret(null, 30, 0);
+        alsoTeamOwned.setTeam(team);
+        Secret personal = secret(null, 7, 0);
+        entityManager.flush();
+
+        assertThat(secretRepository.findTeamRecipientsByIdIn(List.of(due.getId(), personal.getId())))
+                .extracting(recipient -> recipient.getSecretId() + " " + recipient.getEmail())
+                .containsExactlyInAnyOrder(due.getId() + " owner@example.com", due.getId() + " member@example.com");
+    }
+
+    private Map<Long, String> dueLevels(int maxThreshold) {
+        return secretRepository.findDueLevels(TODAY, TODAY.plusDays(maxThreshold), standard.getId()).stream()
+                .collect(Collectors.toMap(SecretRepository.DueLevel::getSecretId, dueLevel -> "level "
+                        + dueLevel.getLevel() + "/" + dueLevel.getLevelCount() + " at " + dueLevel.getThreshold()
+                        + " days"));
+    }
+
+    private ThresholdPolicy policy(String name, User owner, int... thresholds) {
+        ThresholdPolicy policy = new ThresholdPolicy();
+        policy.setName(name);
+        policy.setUser(owner);
+        policy.setThresholds(thresholds);
+        return entityManager.persist(policy);
+    }
+
+    private Secret secret(ThresholdPolicy policy, int daysFromToday, int notifiedLevels) {
+        Secret secret = new Secret();
+        secret.setUser(user);
+        secret.setPolicy(policy);
+        secret.setName("secret-" + daysFromToday);
+        secret.setExpiryDate(TODAY.plusDays(daysFromToday));
+        secret.setNotifiedLevels(notifiedLevels);
+        return entityManager.persist(secret);
+    }
+}
@@ -0,0 +1,206 @@
+package com.expiryguard.scheduler;
+
+import com.expiryguard.entity.NotificationEvent;
+import com.expiryguard.entity.NotificationRollup;
+import com.expiryguard.entity.Secret;
+import com.expiryguard.entity.Team;
+import com.expiryguard.entity.User;
+import com.expiryguard.service.NotificationHistory;
+import com.expiryguard.service.NotificationHistoryRecorder;
+import com.expiryguard.service.NotificationHistoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:history-test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ NotificationHistoryCompactor.class, NotificationHistoryService.class })
+class NotificationHistoryCompactorTest {
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NotificationHistoryCompactor compactor;
+    @Autowired
+    private NotificationHistoryService historyService;
+    @MockitoBean
+    private NotificationHistoryRecorder historyRecorder;
+
+    private final LocalDateTime thisHour = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.HOURS);
+    private User alice;
+    private User bob;
+    private Team platform;
+    private Secret alicePersonal;
+    private Secret bobPersonal;
+    private Secret shared;
+
+    @BeforeEach
+    void setUp() {
+        compactor.createLockRow();
+        alice = user("alice@example.com");
+        bob = user("bob@example.com");
+        platform = new Team();
+        platform.setName("Platform");
+        platform.getMembers().add(alice);
+        entityManager.persist(platform);
+        alicePersonal = secret(alice, null);
+        bobPersonal = secret(bob, null);
+        shared = secret(bob, platform);
+    }
+
+    @Test
+    void rollsEventsUpIntoHourlyBucketsPerOwner() {
+        event(alicePersonal, NotificationEvent.Channel.EMAIL, NotificationEvent.Outcome.SENT, 100, thisHour.minusHours(2));
+        event(alicePersonal, NotificationEvent.Channel.EMAIL, NotificationEvent.Outcome.SENT, 300,
+                thisHour.minusHours(2).plusMinutes(59));
+        event(alicePersonal, NotificationEvent.Channel.EMAIL, NotificationEvent.Outcome.FAILED, 50, thisHour.minusHours(1));
+        event(shared, NotificationEvent.Channel.SLACK, NotificationEvent.Outcome.SENT, 20, thisHour.minusHours(2));
+        event(bobPersonal, NotificationEvent.Channel.EMAIL, NotificationEvent.Outcome.SENT, 10, thisHour);
+
+        compactor.compact();
+
+        assertThat(hourly()).containsExactly(
+                "HOUR " + thisHour.minusHours(2) + " user:" + alice.getId() + " EMAIL SENT 2 400 300",
+                "HOUR " + thisHour.minusHours(2) + " team:" + platform.getId() + " SLACK SENT 1 20 20",
+                "HOUR " + thisHour.minusHours(1) + " user:" + alice.getId() + " EMAIL FAILED 1 50 50",
+                "HOUR " + thisHour + " user:" + bob.getId() + " EMAIL SENT 1 10 10");
+        assertThat(dailyCounts()).containsOnly(
+                Map.entry("user:" + alice.getId(), 3L),
+                Map.entry("team:" + platform.getId(), 1L),
+                Map.entry("user:" + bob.getId(), 1L));
+    }
+
+    @Test
+    void repeatedRunsDoNotDoubleCount() {
+        event(alicePersonal, NotificationEvent.Channel.EMAIL, NotificationEvent.Outcome.SENT, 100, thisHour.minusHours(1));
+        compactor.compact();
+        event(alicePersonal, NotificationEvent.Channel.EMAIL, NotificationEvent.Outcome.SENT, 100, thisHour);
+
+        compactor.compact();
+        compactor.compact();
+
+        assertThat(hourly()).containsExactly(
+                "HOUR " + thisHour.minusHours(1) + " user:" + alice.getId() + " EMAIL SENT 1 100 100",
+                "HOUR " + thisHour + " user:" + alice.getId() + " EMAIL SENT 1 100 100");
+        assertThat(dailyCounts()).containsOnly(Map.entry("user:" + alice.getId(), 2L));
+        assertThat(jdbcTemplate.queryForObject("SELECT locked_at FROM job_locks WHERE name = 'notification-history'",
+                LocalDateTime.class)).isNotNull();
+    }
+
+    @Test
+    void quietSpellLongerThanRetentionKeepsOldRollups() {
+        LocalDateTime monthAgo = thisHour.minusDays(40);
+        LocalDateTime quarterAgo = thisHour.minusDays(100);
+        event(alicePersonal, NotificationEvent.Channel.EMAIL, NotificationEvent.Outcome.SENT, 100, monthAgo);
+        event(alicePersonal, NotificationEvent.Channel.EMAIL, NotificationEvent.Outcome.SENT, 100, quarterAgo);
+        compactor.compact(); // Rolls both up, then purges the events and the older hourly rollup
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notification_events", Long.class)).isZero();
+        assertThat(hourly()).containsExactly(
+                "HOUR " + monthAgo + " user:" + alice.getId() + " EMAIL SENT 1 100 100");
+
+        compactor.compact();
+        compactor.compact();
+        event(alicePersonal, NotificationEvent.Channel.EMAIL, NotificationEvent.Outcome.SENT, 100, thisHour);
+        compactor.compact();
+
+        assertThat(hourly()).containsExactly(
+                "HOUR " + monthAgo + " user:" + alice.getId() + " EMAIL SENT 1 100 100",
+                "HOUR " + thisHour + " user:" + alice.getId() + " EMAIL SENT 1 100 100");
+        assertThat(jdbcTemplate.queryForList("SELECT bucket_start FROM notification_rollups "
+                + "WHERE granularity = 'DAY' ORDER BY bucket_start", LocalDateTime.class))
+                .startsWith(quarterAgo.truncatedTo(ChronoUnit.DAYS), monthAgo.truncatedTo(ChronoUnit.DAYS));
+        assertThat(dailyCounts()).containsOnly(Map.entry("user:" + alice.getId(), 3L));
+    }
+
+    @Test
+    void historyOnlyCoversTheUsersOwnAndTeamSecrets() {
+        event(alicePersonal, NotificationEvent.Channel.EMAIL, NotificationEvent.Outcome.SENT, 100, thisHour);
+        event(shared, NotificationEvent.Channel.SLACK, NotificationEvent.Outcome.FAILED, 100, thisHour);
+        event(bobPersonal, NotificationEvent.Channel.EMAIL, NotificationEvent.Outcome.SENT, 100, thisHour);
+        event(bobPersonal, NotificationEvent.Channel.EMAIL, NotificationEvent.Outcome.SENT, 100, thisHour);
+        compactor.compact();
+        entityManager.clear();
+
+        NotificationHistory aliceHistory = historyService.getHistory(alice, NotificationRollup.Granularity.HOUR, 3);
+        assertThat(aliceHistory.sent()).isEqualTo(1);
+        assertThat(aliceHistory.failed()).isEqualTo(1);
+
+        NotificationHistory bobHistory = historyService.getHistory(bob, NotificationRollup.Granularity.DAY, 1);
+        assertThat(bobHistory.sent()).isEqualTo(2);
+        assertThat(bobHistory.failed()).isZero(); // Bob owns the shared secret but is not on the team
+    }
+
+    private List<String> hourly() {
+        return jdbcTemplate.query("SELECT * FROM notification_rollups WHERE granularity = 'HOUR' "
+                        + "ORDER BY bucket_start, team_owned, channel, outcome",
+                (rs, i) -> rs.getString("granularity") + " " + rs.getTimestamp("bucket_start").toLocalDateTime()
+                        + " " + (rs.getBoolean("team_owned") ? "team:" : "user:") + rs.getLong("owner_id")
+                        + " " + rs.getString("channel") + " " + rs.getString("outcome")
+                        + " " + rs.getLong("message_count") + " " + rs.getLong("total_latency_ms")
+                        + " " + rs.getLong("max_latency_ms"));
+    }
+
+    /**
+     * Daily totals per owner; the hours above may straddle midnight, so buckets are summed.
+     */
+    private Map<String, Long> dailyCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT team_owned, owner_id, message_count FROM notification_rollups "
+                + "WHERE granularity = 'DAY'", rs -> {
+            counts.merge((rs.getBoolean(1) ? "team:" : "user:") + rs.getLong(2), rs.getLong(3), Long::sum);
+        });
+        return counts;
+    }
+
+    private User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("x");
+        return entityManager.persist(user);
+    }
+
+    private Secret secret(User owner, Team team) {
+        Secret secret = new Secret();
+        secret.setUser(owner);
+        secret.setTeam(team);
+        secret.setName("secret");
+        secret.setExpiryDate(LocalDate.now().plusDays(10));
+        return entityManager.persist(secret);
+    }
+
+    private void event(Secret secret, NotificationEvent.Channel channel, NotificationEvent.Outcome outcome,
+            long latencyMs, LocalDateTime occurredAt) {
+        NotificationEvent event = new NotificationEvent();
+        event.setSecretId(secret.getId());
+        event.setRecipient("someone@example.com");
+        event.setChannel(channel);
+        event.setThreshold(7);
+        event.setOutcome(outcome);
+        event.setLatencyMs(latencyMs);
+        event.setOccurredAt(occurredAt);
+        entityManager.persistAndFlush(event);
+    }
+}
@@ -0,0 +1,73 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.ApiToken;
+import com.expiryguard.entity.User;
+import com.expiryguard.repository.ApiTokenRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ApiTokenServiceTest {
+    private final ApiTokenRepository apiTokenRepository = mock(ApiTokenRepository.class);
+    private final ApiTokenService apiTokenService = new ApiTokenService(apiTokenRepository, 60, 90);
+    private final User user = user();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void blankNamesAreRejectedAndNamesAreTrimmed() {
+        when(apiTokenRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertThatThrownBy(() -> apiTokenService.createToken(user, "   ", ApiToken.Type.SERVICE))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Token name is required");
+        assertThat(apiTokenService.createToken(user, "  CI  ", ApiToken.Type.SERVICE).token().getName())
+                .isEqualTo("CI");
+        verify(apiTokenRepository, times(1)).save(any());
+    }
+
+    @Test
+    void revokedTokenStaysCachedUntilTheRevocationCommits() {
+        when(apiTokenRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        ApiTokenService.CreatedToken created = apiTokenService.createToken(user, "CI", ApiToken.Type.SERVICE);
+        ApiToken token = created.token();
+        token.setId(5L);
+        token.setActive(true);
+        when(apiTokenRepository.findActiveByTokenHash(token.getTokenHash())).thenReturn(Optional.of(token));
+        when(apiTokenRepository.findById(5L)).thenReturn(Optional.of(token));
+        assertThat(apiTokenService.authenticate(created.rawToken())).isNotNull();
+
+        TransactionSynchronizationManager.initSynchronization();
+        apiTokenService.revokeToken(5L, user);
+        when(apiTokenRepository.findActiveByTokenHash(token.getTokenHash())).thenReturn(Optional.empty());
+
+        // Eviction waits for the commit, so a lookup in between cannot re-cache the still-active row
+        assertThat(apiTokenService.authenticate(created.rawToken())).isNotNull();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(apiTokenService.authenticate(created.rawToken())).isNull();
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("user1@example.com");
+        return user;
+    }
+}
@@ -0,0 +1,82 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.Secret;
+import com.expiryguard.entity.Team;
+import com.expiryguard.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.expiryguard.service.SecretServiceRecipientsTest.secret;
+import static com.expiryguard.service.SecretServiceRecipientsTest.team;
+import static com.expiryguard.service.SecretServiceRecipientsTest.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailServiceTest {
+    private FakeSmtpServer server;
+    private SmtpTransportPool pool;
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeSmtpServer();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(server.port());
+        pool = new SmtpTransportPool(mailSender, 2, 100, 60, 5, 0);
+        emailService = new EmailService(pool);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        pool.destroy();
+        server.close();
+    }
+
+    @Test
+    void sendsOneDigestPerRecipientListingAllTheirSecrets() {
+        User alice = user(1L, "alice@example.com");
+        User bob = user(2L, "bob@example.com");
+        Team platform = team(10L, "Platform");
+        Secret personal = secret(1L, "alice-key", alice, null);
+        Secret shared = secret(2L, "shared-cert", alice, platform);
+        Map<String, List<Secret>> byRecipient = new LinkedHashMap<>();
+        byRecipient.put("alice@example.com", List.of(personal, shared));
+        byRecipient.put("bob@example.com", List.of(shared));
+
+        Map<String, DeliveryResult> results = emailService.sendExpiryDigests(byRecipient);
+
+        assertThat(results).containsOnlyKeys("alice@example.com", "bob@example.com");
+        assertThat(results.values()).allMatch(DeliveryResult::sent);
+        assertThat(server.messages()).hasSize(2);
+
+        String aliceMail = messageTo("alice@example.com");
+        assertThat(aliceMail).contains("Subject: ExpiryGuard reminder: 2 secrets expiring soon")
+                .contains("- alice-key: expires on")
+                .contains("- shared-cert (team Platform): expires on")
+                .contains("(5 days remaining)");
+
+        String bobMail = messageTo("bob@example.com");
+        assertThat(bobMail).contains("Subject: ExpiryGuard reminder: shared-cert expires in 5 days")
+                .contains("Your secret 'shared-cert' (team Platform) will expire on")
+                .doesNotContain("alice-key");
+    }
+
+    @Test
+    void noRecipientsSendsNothing() {
+        assertThat(emailService.sendExpiryDigests(Map.of())).isEmpty();
+        assertThat(server.connections()).isZero();
+    }
+
+    private String messageTo(String email) {
+        return server.messages().stream()
+                .filter(message -> message.contains("To: " + email))
+                .findFirst()
+                .orElseThrow();
+    }
+}
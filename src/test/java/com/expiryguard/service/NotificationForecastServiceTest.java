@@ -0,0 +1,161 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.ThresholdPolicy;
+import com.expiryguard.entity.User;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NotificationForecastServiceTest {
+    private static final LocalDate TODAY = LocalDate.of(2026, 1, 1);
+    private static final int[][] POLICIES = { { 30, 7, 3 }, { 90, 60, 14, 1 }, { 10 } };
+    private static final int[] COLUMNS = { 90, 60, 30, 14, 10, 7, 3, 1 };
+
+    @Test
+    void matchesDayByDayReplayOfTheSchedulerRules() {
+        Random random = new Random(42);
+        // More than one chunk, so chunks are merged and share the recipient bitsets
+        int size = 150_000;
+        int userCount = 300;
+        int[] expiry = new int[size];
+        int[] policy = new int[size];
+        int[] notified = new int[size];
+        int[] offsets = new int[size + 1];
+        List<Integer> recipients = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            expiry[i] = (int) TODAY.toEpochDay() + random.nextInt(140) - 10;
+            policy[i] = random.nextInt(POLICIES.length);
+            notified[i] = random.nextInt(1 << POLICIES[policy[i]].length);
+            Set<Integer> secretRecipients = new HashSet<>();
+            int count = 1 + random.nextInt(3);
+            while (secretRecipients.size() < count) {
+                secretRecipients.add(random.nextInt(userCount));
+            }
+            recipients.addAll(secretRecipients);
+            offsets[i + 1] = recipients.size();
+        }
+        NotificationForecastService.Snapshot snapshot = new NotificationForecastService.Snapshot(TODAY,
+                System.nanoTime(), size, expiry, policy, notified, POLICIES, COLUMNS, policyColumns(), offsets,
+                recipients.stream().mapToInt(Integer::intValue).toArray(), userCount);
+
+        int horizon = 120;
+        NotificationForecast forecast = NotificationForecastService.evaluate(snapshot, TODAY, horizon, 2, 1);
+
+        long[][] expected = new long[horizon][COLUMNS.length];
+        long[] expectedEmails = new long[horizon];
+        int[] mask = notified.clone();
+        for (int day = 0; day < horizon; day++) {
+            Set<Integer> emailed = new HashSet<>();
+            for (int i = 0; i < size; i++) {
+                long daysRemaining = expiry[i] - TODAY.plusDays(day).toEpochDay();
+                if (daysRemaining < 0) {
+                    continue;
+                }
+                int level = ThresholdPolicyService.levelFor(POLICIES[policy[i]], daysRemaining);
+                if (level == 0 || (mask[i] & (1 << (level - 1))) != 0) {
+                    continue;
+                }
+                mask[i] |= ThresholdPolicyService.firedMask(level);
+                expected[day][policyColumns()[policy[i]][level - 1]]++;
+                for (int r = offsets[i]; r < offsets[i + 1]; r++) {
+                    emailed.add(recipients.get(r));
+                }
+            }
+            expectedEmails[day] = emailed.size();
+        }
+
+        assertThat(forecast.days()).hasSize(horizon);
+        for (int day = 0; day < horizon; day++) {
+            NotificationForecast.Day forecastDay = forecast.days().get(day);
+            long notifications = 0;
+            for (int column = 0; column < COLUMNS.length; column++) {
+                assertThat(forecastDay.notificationsByThreshold().get(COLUMNS[column]))
+                        .as("day %d, %d-day threshold", day, COLUMNS[column])
+                        .isEqualTo(expected[day][column]);
+                notifications += expected[day][column];
+            }
+            assertThat(forecastDay.date()).isEqualTo(TODAY.plusDays(day));
+            assertThat(forecastDay.notifications()).isEqualTo(notifications);
+            assertThat(forecastDay.emails()).as("emails on day %d", day).isEqualTo(expectedEmails[day]);
+            assertThat(forecastDay.webhookMessages()).isEqualTo(notifications * 2 + 1);
+        }
+    }
+
+    @Test
+    void onlyCountsSecretsTheUserCanSee() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:forecast;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE threshold_policies (id BIGINT PRIMARY KEY, thresholds INTEGER ARRAY)");
+        jdbcTemplate.execute("CREATE TABLE team_members (team_id BIGINT, user_id BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE secrets (id BIGINT PRIMARY KEY, user_id BIGINT, team_id BIGINT, " +
+                "policy_id BIGINT, expiry_date DATE, active BOOLEAN, notified_levels INTEGER)");
+        jdbcTemplate.update("INSERT INTO threshold_policies VALUES (1, ARRAY[30, 7, 3]), (2, ARRAY[45])");
+        jdbcTemplate.update("INSERT INTO team_members VALUES (10, 1), (10, 2), (20, 3)");
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        insertSecret(jdbcTemplate, 1, 1, null, null, today.plusDays(5));   // alice's own
+        insertSecret(jdbcTemplate, 2, 2, 10L, null, today.plusDays(5));    // shared with alice's team
+        insertSecret(jdbcTemplate, 3, 2, null, null, today.plusDays(5));   // bob's own
+        insertSecret(jdbcTemplate, 4, 3, 20L, 2L, today.plusDays(5));      // another team, other policy
+
+        ThresholdPolicyService policyService = mock(ThresholdPolicyService.class);
+        ThresholdPolicy defaultPolicy = new ThresholdPolicy();
+        defaultPolicy.setId(1L);
+        when(policyService.getDefaultPolicy()).thenReturn(defaultPolicy);
+        NotificationForecastService forecastService = new NotificationForecastService(jdbcTemplate,
+                mock(WebhookService.class), policyService, 300);
+
+        NotificationForecast forecast = forecastService.forecast(user(1L), 3);
+
+        assertThat(forecast.secretsEvaluated()).isEqualTo(2);
+        NotificationForecast.Day first = forecast.days().get(0);
+        assertThat(first.notificationsByThreshold()).containsOnlyKeys(30, 7, 3).containsEntry(7, 2L);
+        assertThat(first.emails()).isEqualTo(2); // alice, plus bob for the team secret
+        assertThat(forecastService.forecast(user(3L), 3).secretsEvaluated()).isEqualTo(1);
+    }
+
+    private static void insertSecret(JdbcTemplate jdbcTemplate, long id, long userId, Long teamId, Long policyId,
+            LocalDate expiry) {
+        jdbcTemplate.update("INSERT INTO secrets VALUES (?, ?, ?, ?, ?, true, 0)", id, userId, teamId, policyId,
+                expiry);
+    }
+
+    private static int[][] policyColumns() {
+        int[][] columns = new int[POLICIES.length][];
+        for (int p = 0; p < POLICIES.length; p++) {
+            columns[p] = new int[POLICIES[p].length];
+            for (int t = 0; t < POLICIES[p].length; t++) {
+                columns[p][t] = indexOf(COLUMNS, POLICIES[p][t]);
+            }
+        }
+        return columns;
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown threshold: " + value);
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
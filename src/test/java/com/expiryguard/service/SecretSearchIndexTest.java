@@ -0,0 +1,198 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.Secret;
+import com.expiryguard.entity.Team;
+import com.expiryguard.entity.User;
+import com.expiryguard.repository.SecretRepository;
+import com.expiryguard.repository.TeamRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SecretSearchIndexTest {
+    private static final LocalDate TODAY = LocalDate.of(2026, 1, 1);
+
+    private final SecretRepository secretRepository = mock(SecretRepository.class);
+    private final TeamRepository teamRepository = mock(TeamRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final List<Secret> stored = new ArrayList<>();
+    private final User user = user(1L);
+    private SecretSearchIndex index;
+    private long nextId = 1;
+
+    @BeforeEach
+    void setUp() {
+        when(secretRepository.findVisibleToUser(any())).thenAnswer(invocation -> List.copyOf(stored));
+        when(teamRepository.findTeamIdsByMember(any())).thenReturn(List.of(10L));
+        index = new SecretSearchIndex(secretRepository, teamRepository, transactionManager, 10);
+    }
+
+    @Test
+    void ranksExactThenPrefixThenWordThenSubstringThenNotes() {
+        store("in notes", "mentions cert renewal", 1);
+        store("xcert", null, 1);
+        store("prod cert", null, 1);
+        store("certificate", null, 1);
+        store("cert", null, 1);
+
+        assertThat(names(search("cert", 0, 10)))
+                .containsExactly("cert", "certificate", "prod cert", "xcert", "in notes");
+    }
+
+    @Test
+    void sameRankIsOrderedByExpiryThenName() {
+        store("cert b", null, 5);
+        store("cert a", null, 5);
+        store("cert c", null, 2);
+
+        assertThat(names(search("cert", 0, 10))).containsExactly("cert c", "cert a", "cert b");
+    }
+
+    @Test
+    void paginatesAndReportsTotal() {
+        for (int i = 0; i < 7; i++) {
+            store("key-" + i, null, i);
+        }
+
+        SecretSearchIndex.SearchMatches second = search("key", 1, 3);
+        assertThat(second.total()).isEqualTo(7);
+        assertThat(names(second)).containsExactly("key-3", "key-4", "key-5");
+        assertThat(names(search("key", 2, 3))).containsExactly("key-6");
+        assertThat(search("key", 3, 3).matches()).isEmpty();
+    }
+
+    @Test
+    void pageBeyondIntRangeReturnsNoMatches() {
+        store("cert", null, 1);
+
+        SecretSearchIndex.SearchMatches matches = search("cert", 30_000_000, 100);
+
+        assertThat(matches.matches()).isEmpty();
+        assertThat(matches.total()).isEqualTo(1);
+    }
+
+    @Test
+    void filtersByExpiryRangeAndPredicate() {
+        store("cert early", null, 1);
+        store("cert late", null, 20);
+
+        assertThat(names(index.search(user, "cert", TODAY.plusDays(10), null, secret -> true, 0, 10)))
+                .containsExactly("cert late");
+        assertThat(names(index.search(user, "cert", null, null, secret -> secret.name().endsWith("early"), 0, 10)))
+                .containsExactly("cert early");
+    }
+
+    @Test
+    void savesAndDeletesUpdateALoadedIndex() {
+        store("cert one", null, 1);
+        search("cert", 0, 10);
+
+        Secret added = secret("cert two", null, 2);
+        index.onSecretSaved(added);
+        Secret teamSecret = secret("cert team", null, 3);
+        teamSecret.setUser(user(2L));
+        Team team = new Team();
+        team.setId(10L);
+        teamSecret.setTeam(team);
+        index.onSecretSaved(teamSecret);
+        assertThat(names(search("cert", 0, 10))).containsExactly("cert one", "cert two", "cert team");
+
+        added.setActive(false);
+        index.onSecretSaved(added);
+        assertThat(names(search("cert", 0, 10))).containsExactly("cert one", "cert team");
+        verify(secretRepository, times(1)).findVisibleToUser(any());
+    }
+
+    @Test
+    void saveForAnotherUsersPersonalSecretIsIgnored() {
+        store("cert", null, 1);
+        search("cert", 0, 10);
+
+        Secret other = secret("cert other", null, 1);
+        other.setUser(user(2L));
+        index.onSecretSaved(other);
+
+        assertThat(names(search("cert", 0, 10))).containsExactly("cert");
+    }
+
+    @Test
+    void saveCommittedDuringRebuildIsReplayedOntoTheNewIndex() {
+        store("cert one", null, 1);
+        Secret savedMidLoad = secret("cert two", null, 2);
+        when(secretRepository.findVisibleToUser(any())).thenAnswer(invocation -> {
+            List<Secret> snapshot = List.copyOf(stored);
+            index.onSecretSaved(savedMidLoad); // Committed after the query read its snapshot
+            return snapshot;
+        });
+
+        assertThat(names(search("cert", 0, 10))).containsExactly("cert one", "cert two");
+        assertThat(names(search("cert", 0, 10))).containsExactly("cert one", "cert two");
+        verify(secretRepository, times(1)).findVisibleToUser(any());
+    }
+
+    @Test
+    void otherUsersSavesDuringRebuildDoNotForceAnotherRebuild() {
+        store("cert", null, 1);
+        Secret othersSecret = secret("cert other", null, 1);
+        othersSecret.setUser(user(2L));
+        when(secretRepository.findVisibleToUser(any())).thenAnswer(invocation -> {
+            index.onSecretSaved(othersSecret);
+            return List.copyOf(stored);
+        });
+
+        search("cert", 0, 10);
+        assertThat(names(search("cert", 0, 10))).containsExactly("cert");
+        verify(secretRepository, times(1)).findVisibleToUser(any());
+    }
+
+    @Test
+    void expiredIndexIsRebuiltFromTheDatabase() {
+        index = new SecretSearchIndex(secretRepository, teamRepository, transactionManager, 0);
+        store("cert", null, 1);
+        search("cert", 0, 10);
+        store("cert new", null, 1);
+
+        assertThat(names(search("cert", 0, 10))).containsExactly("cert", "cert new");
+        verify(secretRepository, times(2)).findVisibleToUser(any());
+    }
+
+    private SecretSearchIndex.SearchMatches search(String query, int page, int size) {
+        return index.search(user, query, null, null, secret -> true, page, size);
+    }
+
+    private static List<String> names(SecretSearchIndex.SearchMatches matches) {
+        return matches.matches().stream().map(SecretSearchIndex.IndexedSecret::name).toList();
+    }
+
+    private void store(String name, String notes, int daysFromToday) {
+        stored.add(secret(name, notes, daysFromToday));
+    }
+
+    private Secret secret(String name, String notes, int daysFromToday) {
+        Secret secret = new Secret();
+        secret.setId(nextId++);
+        secret.setUser(user);
+        secret.setName(name);
+        secret.setNotes(notes);
+        secret.setExpiryDate(TODAY.plusDays(daysFromToday));
+        return secret;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("user" + id + "@example.com");
+        return user;
+    }
+}
@@ -0,0 +1,106 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.Secret;
+import com.expiryguard.entity.Team;
+import com.expiryguard.entity.User;
+import com.expiryguard.repository.SecretRepository;
+import com.expiryguard.repository.TeamRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SecretServiceRecipientsTest {
+    private final SecretRepository secretRepository = mock(SecretRepository.class);
+    private final SecretService secretService = new SecretService(secretRepository, mock(TeamRepository.class),
+            mock(SecretSearchIndex.class), mock(ThresholdPolicyService.class));
+
+    private final User alice = user(1L, "alice@example.com");
+    private final User bob = user(2L, "bob@example.com");
+    private final Team platform = team(10L, "Platform");
+
+    @Test
+    void personalSecretsGoToTheirOwner() {
+        Secret personal = secret(1L, "alice-key", alice, null);
+
+        Map<String, List<Secret>> byRecipient = secretService.groupByRecipient(List.of(personal));
+
+        assertThat(byRecipient).containsOnlyKeys("alice@example.com");
+        assertThat(byRecipient.get("alice@example.com")).containsExactly(personal);
+        verify(secretRepository, never()).findTeamRecipientsByIdIn(any());
+    }
+
+    @Test
+    void eachPersonGetsOneEntryWithAllPersonalAndTeamSecrets() {
+        Secret alicePersonal = secret(1L, "alice-key", alice, null);
+        Secret bobPersonal = secret(2L, "bob-key", bob, null);
+        Secret shared = secret(3L, "shared-cert", alice, platform);
+        Secret sharedToo = secret(4L, "shared-token", bob, platform);
+        when(secretRepository.findTeamRecipientsByIdIn(List.of(3L, 4L))).thenReturn(List.of(
+                recipient(3L, "alice@example.com"), recipient(3L, "bob@example.com"),
+                recipient(4L, "alice@example.com"), recipient(4L, "bob@example.com")));
+
+        Map<String, List<Secret>> byRecipient = secretService.groupByRecipient(
+                List.of(alicePersonal, bobPersonal, shared, sharedToo));
+
+        assertThat(byRecipient).containsOnlyKeys("alice@example.com", "bob@example.com");
+        assertThat(byRecipient.get("alice@example.com")).containsExactly(alicePersonal, shared, sharedToo);
+        assertThat(byRecipient.get("bob@example.com")).containsExactly(bobPersonal, shared, sharedToo);
+    }
+
+    @Test
+    void teamSecretWithoutResolvedMembersFallsBackToOwner() {
+        Secret shared = secret(3L, "shared-cert", alice, platform);
+        when(secretRepository.findTeamRecipientsByIdIn(any())).thenReturn(List.of());
+
+        Map<String, List<Secret>> byRecipient = secretService.groupByRecipient(List.of(shared));
+
+        assertThat(byRecipient).containsOnlyKeys("alice@example.com");
+    }
+
+    private static SecretRepository.SecretRecipient recipient(Long secretId, String email) {
+        return new SecretRepository.SecretRecipient() {
+            @Override
+            public Long getSecretId() {
+                return secretId;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+
+    static Secret secret(Long id, String name, User owner, Team team) {
+        Secret secret = new Secret();
+        secret.setId(id);
+        secret.setName(name);
+        secret.setUser(owner);
+        secret.setTeam(team);
+        secret.setExpiryDate(LocalDate.now().plusDays(5));
+        return secret;
+    }
+
+    static User user(Long id, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        return user;
+    }
+
+    static Team team(Long id, String name) {
+        Team team = new Team();
+        team.setId(id);
+        team.setName(name);
+        return team;
+    }
+}
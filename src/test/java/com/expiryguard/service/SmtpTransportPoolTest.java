@@ -0,0 +1,110 @@
+package com.expiryguard.service;
+
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class SmtpTransportPoolTest {
+    private FakeSmtpServer server;
+    private SmtpTransportPool pool;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = new FakeSmtpServer();
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        if (pool != null) {
+            pool.destroy();
+        }
+        server.close();
+    }
+
+    @Test
+    void reusesConnectionsAcrossMessages() {
+        pool = newPool(2, 100, 60);
+
+        List<DeliveryResult> results = pool.sendAll(messages(10, "user"));
+
+        assertThat(results).hasSize(10).allMatch(DeliveryResult::sent);
+        assertThat(server.messages()).hasSize(10);
+        assertThat(server.connections()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void reconnectsAfterMaxMessagesPerConnection() {
+        pool = newPool(1, 3, 60);
+
+        for (MimeMessage message : messages(7, "user")) {
+            pool.send(message);
+        }
+
+        assertThat(server.messages()).hasSize(7);
+        assertThat(server.connections()).isEqualTo(3);
+    }
+
+    @Test
+    void rejectedRecipientFailsOnlyThatMessage() {
+        pool = newPool(1, 100, 60);
+        List<MimeMessage> messages = new ArrayList<>(messages(1, "reject"));
+        messages.addAll(messages(2, "user"));
+
+        List<DeliveryResult> results = pool.sendAll(messages);
+
+        assertThat(results).extracting(DeliveryResult::sent).containsExactly(false, true, true);
+        assertThat(server.connections()).isEqualTo(1);
+    }
+
+    @Test
+    void closesIdleConnectionsWithoutWaitingForNextSend() throws Exception {
+        pool = newPool(2, 100, 1);
+        pool.send(messages(1, "user").get(0));
+        assertThat(server.connections()).isEqualTo(1);
+        assertThat(server.closedConnections()).isZero();
+
+        Thread.sleep(1100);
+        assertThat(pool.closeIdleConnections()).isEqualTo(1);
+        await().until(() -> server.closedConnections() == 1);
+        assertThat(pool.closeIdleConnections()).isZero();
+    }
+
+    @Test
+    void keepsRecentlyUsedConnectionsOpen() {
+        pool = newPool(2, 100, 60);
+        pool.send(messages(1, "user").get(0));
+
+        assertThat(pool.closeIdleConnections()).isZero();
+        pool.send(messages(1, "user").get(0));
+        assertThat(server.connections()).isEqualTo(1);
+    }
+
+    private SmtpTransportPool newPool(int size, int maxMessagesPerConnection, long maxIdleSeconds) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(server.port());
+        return new SmtpTransportPool(mailSender, size, maxMessagesPerConnection, maxIdleSeconds, 5, 0);
+    }
+
+    private List<MimeMessage> messages(int count, String recipient) {
+        List<MimeMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom("expiryguard@example.com");
+            message.setTo(recipient + i + "@example.com");
+            message.setSubject("Test " + i);
+            message.setText("Body " + i);
+            messages.add(pool.createMimeMessage(message));
+        }
+        return messages;
+    }
+}
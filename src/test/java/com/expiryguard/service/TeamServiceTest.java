@@ -0,0 +1,85 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.Team;
+import com.expiryguard.entity.User;
+import com.expiryguard.repository.TeamRepository;
+import com.expiryguard.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static com.expiryguard.service.SecretServiceRecipientsTest.team;
+import static com.expiryguard.service.SecretServiceRecipientsTest.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TeamServiceTest {
+    private final TeamRepository teamRepository = mock(TeamRepository.class);
+    private final SecretSearchIndex searchIndex = mock(SecretSearchIndex.class);
+    private final TeamService teamService = new TeamService(teamRepository, mock(UserRepository.class), searchIndex);
+
+    private final User alice = user(1L, "alice@example.com");
+    private final User bob = user(2L, "bob@example.com");
+
+    @Test
+    void createTeamTrimsName() {
+        when(teamRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Team team = teamService.createTeam(alice, "  Platform ");
+
+        assertThat(team.getName()).isEqualTo("Platform");
+        assertThat(team.getMembers()).containsExactly(alice);
+    }
+
+    @Test
+    void createTeamRejectsBlankName() {
+        assertThatThrownBy(() -> teamService.createTeam(alice, "   "))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(teamRepository, never()).save(any());
+    }
+
+    @Test
+    void removeMemberDropsThemAndInvalidatesTheirSearchIndex() {
+        Team platform = teamWith(alice, bob);
+
+        teamService.removeMember(platform.getId(), alice, bob.getId());
+
+        assertThat(platform.getMembers()).containsExactly(alice);
+        verify(searchIndex).invalidate(bob);
+    }
+
+    @Test
+    void removeMemberKeepsTheLastMember() {
+        Team platform = teamWith(alice);
+
+        assertThatThrownBy(() -> teamService.removeMember(platform.getId(), alice, alice.getId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("at least one member");
+        assertThat(platform.getMembers()).containsExactly(alice);
+    }
+
+    @Test
+    void onlyMembersCanRemoveMembers() {
+        Team platform = teamWith(alice);
+        when(teamRepository.existsByIdAndMembers_Id(platform.getId(), bob.getId())).thenReturn(false);
+
+        assertThatThrownBy(() -> teamService.removeMember(platform.getId(), bob, alice.getId()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(platform.getMembers()).containsExactly(alice);
+    }
+
+    private Team teamWith(User... members) {
+        Team team = team(10L, "Platform");
+        for (User member : members) {
+            team.getMembers().add(member);
+            when(teamRepository.existsByIdAndMembers_Id(team.getId(), member.getId())).thenReturn(true);
+        }
+        when(teamRepository.findById(team.getId())).thenReturn(Optional.of(team));
+        return team;
+    }
+}
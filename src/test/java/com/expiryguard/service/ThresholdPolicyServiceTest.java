@@ -0,0 +1,247 @@
+package com.expiryguard.service;
+
+import com.expiryguard.entity.Secret;
+import com.expiryguard.entity.Team;
+import com.expiryguard.entity.ThresholdPolicy;
+import com.expiryguard.entity.User;
+import com.expiryguard.repository.SecretRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:policy-test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ThresholdPolicyService.class)
+class ThresholdPolicyServiceTest {
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ThresholdPolicyService policyService;
+    @Autowired
+    private SecretRepository secretRepository;
+
+    private User alice;
+    private User bob;
+    private User carol;
+    private Team platform;
+
+    @BeforeEach
+    void setUp() {
+        alice = user("alice@example.com");
+        bob = user("bob@example.com");
+        carol = user("carol@example.com");
+        platform = new Team();
+        platform.setName("Platform");
+        platform.getMembers().add(alice);
+        platform.getMembers().add(bob);
+        entityManager.persist(platform);
+    }
+
+    @Test
+    void backfillMapsLastNotifiedThresholdToDefaultPolicyLevels() {
+        Secret at30 = legacySecret(30);
+        Secret at7 = legacySecret(7);
+        Secret at3 = legacySecret(3);
+        Secret never = legacySecret(null);
+        Secret unknownThreshold = legacySecret(14);
+        Secret alreadyConverted = secret(alice, null);
+        alreadyConverted.setLastNotifiedThreshold(30);
+        alreadyConverted.setNotifiedLevels(0b011);
+        entityManager.flush();
+
+        policyService.initialize();
+
+        assertThat(notifiedLevels(at30)).isEqualTo(0b001);
+        assertThat(notifiedLevels(at7)).isEqualTo(0b011);
+        assertThat(notifiedLevels(at3)).isEqualTo(0b111);
+        assertThat(notifiedLevels(never)).isZero();
+        assertThat(notifiedLevels(unknownThreshold)).isZero();
+        assertThat(notifiedLevels(alreadyConverted)).isEqualTo(0b011);
+    }
+
+    @Test
+    void usersSeeTheDefaultTheirOwnAndTheirTeamsPolicies() {
+        ThresholdPolicy personal = policyService.createPolicy(alice, "Partner certs", "90, 60, 14, 1", null);
+        ThresholdPolicy team = policyService.createPolicy(bob, "On-call", "14, 2", platform.getId());
+        ThresholdPolicy carols = policyService.createPolicy(carol, "Partner certs", "45", null);
+
+        assertThat(policyService.getPolicies(alice)).extracting(ThresholdPolicy::getName)
+                .containsExactly(ThresholdPolicyService.DEFAULT_POLICY_NAME, "On-call", "Partner certs");
+        assertThat(policyService.getPolicies(carol)).extracting(ThresholdPolicy::getName)
+                .containsExactly(ThresholdPolicyService.DEFAULT_POLICY_NAME, "Partner certs");
+
+        assertThat(policyService.getPolicy(alice, personal.getId())).isPresent();
+        assertThat(policyService.getPolicy(alice, team.getId())).isPresent();
+        assertThat(policyService.getPolicy(alice, policyService.getDefaultPolicy().getId())).isPresent();
+        assertThat(policyService.getPolicy(alice, carols.getId())).isEmpty();
+        assertThat(policyService.getPolicy(carol, team.getId())).isEmpty();
+    }
+
+    @Test
+    void thresholdsAreLoadedForThePoliciesOfTheUsersSecretsOnly() {
+        ThresholdPolicy bobs = policyService.createPolicy(bob, "Bob's", "45, 5", null);
+        ThresholdPolicy carols = policyService.createPolicy(carol, "Carol's", "120, 1", null);
+        Secret teamSecret = secret(bob, bobs);
+        teamSecret.setTeam(platform);
+        secret(carol, carols);
+        entityManager.flush();
+
+        assertThat(policyService.getThresholdsByPolicy(alice)).containsOnlyKeys(bobs.getId());
+        assertThat(policyService.getThresholdsByPolicy(alice).get(bobs.getId())).containsExactly(45, 5);
+        assertThat(policyService.getThresholdsByPolicy(carol)).containsOnlyKeys(carols.getId());
+        assertThat(policyService.getMaxThreshold()).isEqualTo(120);
+    }
+
+    @Test
+    void namesAreUniquePerOwnerAndTheDefaultNameIsReserved() {
+        policyService.createPolicy(alice, "Partner certs", "90", null);
+
+        assertThatThrownBy(() -> policyService.createPolicy(alice, "partner certs", "60", null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("already exists");
+        assertThat(policyService.createPolicy(alice, "Partner certs", "60", platform.getId()).getTeam())
+                .isEqualTo(platform);
+        assertThatThrownBy(() -> policyService.createPolicy(alice, " standard ", "60", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> policyService.createPolicy(carol, "Sneaky", "60", platform.getId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not a member");
+    }
+
+    @Test
+    void onlyOwnersAndTeamMembersCanEditOrDelete() {
+        ThresholdPolicy personal = policyService.createPolicy(alice, "Mine", "30", null);
+        ThresholdPolicy team = policyService.createPolicy(alice, "Ours", "30", platform.getId());
+        Long defaultId = policyService.getDefaultPolicy().getId();
+
+        assertThat(policyService.updatePolicy(bob, personal.getId(), null, "10")).isEmpty();
+        assertThat(policyService.updatePolicy(bob, team.getId(), null, "10")).isPresent();
+        assertThat(policyService.updatePolicy(carol, team.getId(), null, "10")).isEmpty();
+        assertThat(policyService.updatePolicy(alice, defaultId, null, "10")).isEmpty();
+        assertThat(policyService.deletePolicy(carol, team.getId())).isFalse();
+        assertThat(policyService.deletePolicy(alice, defaultId)).isFalse();
+        assertThat(policyService.deletePolicy(bob, team.getId())).isTrue();
+    }
+
+    @Test
+    void changingThresholdsKeepsTheLevelsAlreadySent() {
+        ThresholdPolicy policy = policyService.createPolicy(alice, "Partner certs", "30, 7, 3", null);
+        Secret allSent = secret(alice, policy, 2);
+        allSent.setNotifiedLevels(0b111);
+        allSent.setLastNotifiedThreshold(3);
+        Secret warned = secret(alice, policy, 5);
+        warned.setNotifiedLevels(0b011);
+        Secret onDefault = secret(alice, null, 5);
+        onDefault.setNotifiedLevels(0b001);
+        entityManager.flush();
+
+        policyService.updatePolicy(alice, policy.getId(), "Renamed", "3, 7, 30");
+        entityManager.flush();
+        assertThat(notifiedLevels(allSent)).isEqualTo(0b111); // Same thresholds, only renamed
+
+        ThresholdPolicy updated = policyService.updatePolicy(alice, policy.getId(), null, "30, 7, 3, 1")
+                .orElseThrow();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(updated.getName()).isEqualTo("Renamed");
+        assertThat(updated.getThresholds()).containsExactly(30, 7, 3, 1);
+        assertThat(notifiedLevels(allSent)).isEqualTo(0b0111);
+        assertThat(notifiedLevels(warned)).isEqualTo(0b0011);
+        assertThat(entityManager.find(Secret.class, allSent.getId()).getLastNotifiedThreshold()).isEqualTo(3);
+        assertThat(notifiedLevels(onDefault)).isEqualTo(0b001);
+        assertThat(dueSecretIds()).containsExactly(onDefault.getId()); // Owed its 7-day notice all along
+    }
+
+    @Test
+    void deletingMovesSecretsToTheDefaultPolicyWithoutResending() {
+        ThresholdPolicy policy = policyService.createPolicy(alice, "Partner certs", "90, 60, 7", null);
+        Secret onPolicy = secret(alice, policy, 5);
+        onPolicy.setNotifiedLevels(0b111);
+        entityManager.flush();
+
+        assertThat(policyService.deletePolicy(alice, policy.getId())).isTrue();
+        entityManager.flush();
+        entityManager.clear();
+
+        Secret moved = entityManager.find(Secret.class, onPolicy.getId());
+        assertThat(moved.getPolicy()).isNull();
+        assertThat(moved.getNotifiedLevels()).isEqualTo(0b011); // 30 counts as sent, 7 kept, 3 still to come
+        assertThat(dueSecretIds()).isEmpty();
+        assertThat(entityManager.find(ThresholdPolicy.class, policy.getId())).isNull();
+    }
+
+    @Test
+    void remappingOnlyBackfillsNewLevelsForSecretsThatWereUpToDate() {
+        int[] standard = { 30, 7, 3 };
+        int[] withSixDays = { 30, 6, 3 };
+
+        // 30 and 7 sent at 5 days: the new 6-day level counts as sent, 7 is gone
+        assertThat(ThresholdPolicyService.remapNotifiedLevels(standard, withSixDays, 0b011, 5)).isEqualTo(0b011);
+        // Only 30 sent, 7-day notice still owed: it is replaced by one 6-day notice
+        assertThat(ThresholdPolicyService.remapNotifiedLevels(standard, withSixDays, 0b001, 5)).isEqualTo(0b001);
+        // Nothing reached yet under the old thresholds: a new 60-day level is sent once
+        assertThat(ThresholdPolicyService.remapNotifiedLevels(standard, new int[] { 60, 30, 7, 3 }, 0, 40))
+                .isZero();
+        // Removed levels drop out, remaining ones keep their bits at their new positions
+        assertThat(ThresholdPolicyService.remapNotifiedLevels(new int[] { 90, 60, 14, 1 }, new int[] { 60, 1 },
+                0b0111, 10)).isEqualTo(0b01);
+    }
+
+    private List<Long> dueSecretIds() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        return secretRepository.findDueLevels(today, today.plusDays(policyService.getMaxThreshold()),
+                policyService.getDefaultPolicy().getId()).stream().map(SecretRepository.DueLevel::getSecretId).toList();
+    }
+
+    private Integer notifiedLevels(Secret secret) {
+        return jdbcTemplate.queryForObject("SELECT notified_levels FROM secrets WHERE id = ?", Integer.class,
+                secret.getId());
+    }
+
+    private Secret legacySecret(Integer lastNotifiedThreshold) {
+        Secret secret = secret(alice, null);
+        secret.setLastNotifiedThreshold(lastNotifiedThreshold);
+        secret.setNotifiedLevels(null);
+        return secret;
+    }
+
+    private Secret secret(User owner, ThresholdPolicy policy) {
+        return secret(owner, policy, 60);
+    }
+
+    private Secret secret(User owner, ThresholdPolicy policy, int daysFromToday) {
+        Secret secret = new Secret();
+        secret.setUser(owner);
+        secret.setPolicy(policy);
+        secret.setName("secret");
+        secret.setExpiryDate(LocalDate.now(ZoneOffset.UTC).plusDays(daysFromToday));
+        return entityManager.persist(secret);
+    }
+
+    private User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("x");
+        return entityManager.persist(user);
+    }
+}